@@ -0,0 +1,151 @@
+/* Lock-free union-find that any number of threads may use at once.
+ * Paper: Jayanti, Tarjan - "A Randomized Concurrent Algorithm for Disjoint Set Union"
+ *
+ * The forest lives in an AtomicIntegerArray and every change is a CAS:
+ *  - find() does path halving, swinging x from its parent to its grandparent
+ *    with compareAndSet(x, parent, grandparent). A failed CAS only means some
+ *    other thread already shortened the path, so it is ignored.
+ *  - union() links one root under the other with compareAndSet(root, root,
+ *    other). If the CAS fails the root was linked meanwhile, and the union
+ *    starts over from the new roots.
+ * Roots are linked by a fixed random priority (a hash of the element) rather
+ * than by size or rank, which would need a second word updated together with
+ * the parent. Random linking keeps the trees O(log n) deep in expectation.
+ * Nobody ever waits on a lock; a thread only retries after another thread
+ * made progress.
+ */
+
+package disjoint_set;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+public class ConcurrentDisjointSet {
+	private final AtomicIntegerArray parent;
+
+	public ConcurrentDisjointSet(int totalNodes) {
+		parent = new AtomicIntegerArray(totalNodes);
+		for (int i = 0; i < totalNodes; i++) {
+			parent.set(i, i);
+		}
+	}
+
+	public int find(int x) {
+		while (true) {
+			int p = parent.get(x);
+			if (p == x) {
+				return x;
+			}
+			int grandparent = parent.get(p);
+			if (p != grandparent) {
+				parent.compareAndSet(x, p, grandparent);
+			}
+			x = grandparent;
+		}
+	}
+
+	// Returns false when a and b were already in the same set.
+	public boolean union(int a, int b) {
+		while (true) {
+			int rootA = find(a);
+			int rootB = find(b);
+			if (rootA == rootB) {
+				return false;
+			}
+			if (before(rootB, rootA)) {
+				int temp = rootA;
+				rootA = rootB;
+				rootB = temp;
+			}
+			// The root of lower priority goes under the other one.
+			if (parent.compareAndSet(rootA, rootA, rootB)) {
+				return true;
+			}
+		}
+	}
+
+	public boolean connected(int a, int b) {
+		while (true) {
+			int rootA = find(a);
+			int rootB = find(b);
+			if (rootA == rootB) {
+				return true;
+			}
+			// rootA still a root means the sets were really apart at this point.
+			if (parent.get(rootA) == rootA) {
+				return false;
+			}
+		}
+	}
+
+	// Only exact while no union is running.
+	public int componentCount() {
+		int roots = 0;
+		for (int i = 0; i < parent.length(); i++) {
+			if (parent.get(i) == i) {
+				roots++;
+			}
+		}
+		return roots;
+	}
+
+	private static boolean before(int a, int b) {
+		int pa = priority(a), pb = priority(b);
+		return pa < pb || (pa == pb && a < b);
+	}
+
+	// Fixed pseudo-random priority of an element (murmur3 finalizer).
+	private static int priority(int x) {
+		x ^= x >>> 16;
+		x *= 0x85ebca6b;
+		x ^= x >>> 13;
+		x *= 0xc2b2ae35;
+		x ^= x >>> 16;
+		return x;
+	}
+
+	/* Scaling benchmark: the same random edges are unioned with 1, 2, 4, ...
+	 * threads, each thread taking its own slice of the edges, and the number
+	 * of components is checked against the sequential DisjointSet.
+	 * Usage: java disjoint_set.ConcurrentDisjointSet [elements] [edges] [max threads]
+	 */
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		int m = args.length > 1 ? Integer.parseInt(args[1]) : 20000000;
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		Random rm = new Random(11);
+		int[] x = new int[m];
+		int[] y = new int[m];
+		for (int e = 0; e < m; e++) {
+			x[e] = rm.nextInt(n);
+			y[e] = rm.nextInt(n);
+		}
+
+		long start = System.currentTimeMillis();
+		DisjointSet sequential = new DisjointSet(n);
+		for (int e = 0; e < m; e++) {
+			sequential.union(x[e], y[e]);
+		}
+		System.out.println("DisjointSet: " + sequential.componentCount() + " components, "
+			+ (System.currentTimeMillis() - start) + " ms");
+
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			ConcurrentDisjointSet set = new ConcurrentDisjointSet(n);
+			int parts = threads;
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			start = System.currentTimeMillis();
+			pool.submit(() -> IntStream.range(0, parts).parallel().forEach(t -> {
+				int from = (int) ((long) m * t / parts);
+				int to = (int) ((long) m * (t + 1) / parts);
+				for (int e = from; e < to; e++) {
+					set.union(x[e], y[e]);
+				}
+			})).join();
+			long elapsed = System.currentTimeMillis() - start;
+			pool.shutdown();
+			System.out.println(threads + " threads: " + set.componentCount() + " components, " + elapsed
+				+ " ms, matches: " + (set.componentCount() == sequential.componentCount()));
+		}
+	}
+}
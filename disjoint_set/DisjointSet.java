@@ -0,0 +1,106 @@
+/* Disjoint set (union-find) over the elements 0 .. n-1.
+ *
+ * parent[] holds the forest; for a root, size[] holds the number of elements
+ * of its set. find() is iterative with path halving: every node on the way
+ * up is pointed at its grandparent, so long chains never touch the stack and
+ * get shorter on every call. union() hangs the smaller tree under the larger
+ * one, which keeps the trees O(log n) deep; together the operations cost
+ * an amortized inverse Ackermann function each.
+ */
+
+package disjoint_set;
+import java.util.Random;
+
+public class DisjointSet {
+	private final int[] parent;
+	private final int[] size;
+	private int components;
+
+	public DisjointSet(int totalNodes) {
+		parent = new int[totalNodes];
+		size = new int[totalNodes];
+		for (int i = 0; i < totalNodes; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+		components = totalNodes;
+	}
+
+	public int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	// Returns false when a and b were already in the same set.
+	public boolean union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB) {
+			return false;
+		}
+		if (size[rootA] < size[rootB]) {
+			int temp = rootA;
+			rootA = rootB;
+			rootB = temp;
+		}
+		parent[rootB] = rootA;
+		size[rootA] += size[rootB];
+		components--;
+		return true;
+	}
+
+	public boolean connected(int a, int b) {
+		return find(a) == find(b);
+	}
+
+	// Number of elements in the set of x.
+	public int componentSize(int x) {
+		return size[find(x)];
+	}
+
+	public int componentCount() {
+		return components;
+	}
+
+	public int elementCount() {
+		return parent.length;
+	}
+
+	/* Stress test: random unions, then checks that the sizes of all roots add
+	 * up to n and that the number of roots matches componentCount().
+	 * Usage: java disjoint_set.DisjointSet [elements] [unions]
+	 */
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		long unions = args.length > 1 ? Long.parseLong(args[1]) : 100000000L;
+		DisjointSet set = new DisjointSet(n);
+		Random rm = new Random(7);
+		long start = System.currentTimeMillis();
+		long merged = 0;
+		int largest = 1;
+		for (long i = 0; i < unions; i++) {
+			int a = rm.nextInt(n);
+			int b = rm.nextInt(n);
+			if (set.union(a, b)) {
+				merged++;
+				largest = Math.max(largest, set.componentSize(a));
+			}
+		}
+		long elapsed = System.currentTimeMillis() - start;
+
+		long total = 0;
+		int roots = 0;
+		for (int v = 0; v < n; v++) {
+			if (set.find(v) == v) {
+				roots++;
+				total += set.componentSize(v);
+			}
+		}
+		boolean consistent = roots == set.componentCount() && total == n && merged == n - roots;
+		System.out.println(unions + " unions on " + n + " elements in " + elapsed + " ms: "
+			+ set.componentCount() + " components, largest " + largest + ", consistent: " + consistent);
+	}
+}
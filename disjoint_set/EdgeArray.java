@@ -0,0 +1,236 @@
+/* Weighted edges stored as three parallel int columns (x, y, weight)
+ * instead of one Edge object per edge: 12 bytes an edge, no headers or
+ * pointers, and a scan over the edges reads memory sequentially.
+ *
+ * sortByWeight() is an in-place MSD radix sort (American flag sort) on the
+ * weight, one byte at a time from the top, carrying x and y along. Each
+ * pass counts the bytes of a range, then moves every edge into its bucket
+ * by following swap cycles, so no scratch copy of the columns is needed.
+ * Buckets with few edges are finished with insertion sort. The sign bit is
+ * flipped in the key so negative weights come first. The sort is not stable.
+ *
+ * parallelSortByWeight() is the same sort with the buckets of a pass sorted
+ * concurrently: they are disjoint ranges of the columns, so no locking is
+ * needed. Buckets of PARALLEL edges or fewer are sorted sequentially, and a
+ * bucket that still holds most of the edges (weights sharing their top bytes)
+ * is split again in parallel at the next byte. The first pass over the whole
+ * array is sequential.
+ */
+
+package disjoint_set;
+import graphs.EdgeListReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class EdgeArray {
+	private static final int INSERTION_SORT = 64;
+	private static final int PARALLEL = 1 << 16;
+
+	int[] x;
+	int[] y;
+	int[] weight;
+	int count;
+
+	public EdgeArray(int capacity) {
+		x = new int[Math.max(1, capacity)];
+		y = new int[x.length];
+		weight = new int[x.length];
+	}
+
+	public EdgeArray() {
+		this(16);
+	}
+
+	// Wrap existing columns; the first count entries are the edges.
+	public EdgeArray(int[] x, int[] y, int[] weight, int count) {
+		this.x = x;
+		this.y = y;
+		this.weight = weight;
+		this.count = count;
+	}
+
+	// Edge list file, one edge per line: <node> <node> <weight>
+	public static EdgeArray fromFile(String filename) throws IOException {
+		EdgeListReader.EdgeList edges = EdgeListReader.read(filename);
+		if (edges.weight == null) {
+			throw new IOException(filename + " has no weight column");
+		}
+		return new EdgeArray(edges.src, edges.dst, edges.weight, edges.count);
+	}
+
+	public void add(int a, int b, int wt) {
+		if (count == x.length) {
+			int capacity = count * 2;
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			weight = Arrays.copyOf(weight, capacity);
+		}
+		x[count] = a;
+		y[count] = b;
+		weight[count] = wt;
+		count++;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int x(int edge) {
+		return x[edge];
+	}
+
+	public int y(int edge) {
+		return y[edge];
+	}
+
+	public int weight(int edge) {
+		return weight[edge];
+	}
+
+	// Largest node id + 1.
+	public int nodeCount() {
+		int max = -1;
+		for (int e = 0; e < count; e++) {
+			max = Math.max(max, Math.max(x[e], y[e]));
+		}
+		return max + 1;
+	}
+
+	public void sortByWeight() {
+		sort(0, count, 24);
+	}
+
+	public void parallelSortByWeight() {
+		parallelSort(0, count, 24);
+	}
+
+	private int digit(int edge, int shift) {
+		return ((weight[edge] ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+	}
+
+	private void sort(int lo, int hi, int shift) {
+		if (hi - lo <= INSERTION_SORT) {
+			insertionSort(lo, hi);
+			return;
+		}
+		int[] end = distribute(lo, hi, shift);
+		if (shift == 0) {
+			return;
+		}
+		int start = lo;
+		for (int b = 0; b < 256; b++) {
+			if (end[b] - start > 1) {
+				sort(start, end[b], shift - 8);
+			}
+			start = end[b];
+		}
+	}
+
+	private void parallelSort(int lo, int hi, int shift) {
+		if (hi - lo <= PARALLEL) {
+			sort(lo, hi, shift);
+			return;
+		}
+		int[] end = distribute(lo, hi, shift);
+		if (shift == 0) {
+			return;
+		}
+		IntStream.range(0, 256).parallel().forEach(b -> {
+			int start = b == 0 ? lo : end[b - 1];
+			if (end[b] - start > 1) {
+				parallelSort(start, end[b], shift - 8);
+			}
+		});
+	}
+
+	// One American flag pass on the byte at shift; returns where every bucket ends.
+	private int[] distribute(int lo, int hi, int shift) {
+		int[] next = new int[257];
+		for (int i = lo; i < hi; i++) {
+			next[digit(i, shift) + 1]++;
+		}
+		next[0] = lo;
+		for (int b = 0; b < 256; b++) {
+			next[b + 1] += next[b];
+		}
+		// end[b] is where bucket b stops; next[b] where its next edge goes.
+		int[] end = Arrays.copyOfRange(next, 1, 257);
+		for (int b = 0; b < 256; b++) {
+			while (next[b] < end[b]) {
+				int i = next[b];
+				int d = digit(i, shift);
+				if (d == b) {
+					next[b]++;
+				}
+				else {
+					swap(i, next[d]++);
+				}
+			}
+		}
+		return end;
+	}
+
+	private void insertionSort(int lo, int hi) {
+		for (int i = lo + 1; i < hi; i++) {
+			int a = x[i], b = y[i], w = weight[i];
+			int j = i - 1;
+			while (j >= lo && weight[j] > w) {
+				x[j + 1] = x[j];
+				y[j + 1] = y[j];
+				weight[j + 1] = weight[j];
+				j--;
+			}
+			x[j + 1] = a;
+			y[j + 1] = b;
+			weight[j + 1] = w;
+		}
+	}
+
+	private void swap(int i, int j) {
+		int t = x[i];
+		x[i] = x[j];
+		x[j] = t;
+		t = y[i];
+		y[i] = y[j];
+		y[j] = t;
+		t = weight[i];
+		weight[i] = weight[j];
+		weight[j] = t;
+	}
+
+	// Usage: java disjoint_set.EdgeArray [edges]
+	public static void main(String[] args) {
+		int m = args.length > 0 ? Integer.parseInt(args[0]) : 50000000;
+		Random rm = new Random(21);
+		EdgeArray edges = new EdgeArray(m);
+		long checksum = 0;
+		for (int e = 0; e < m; e++) {
+			int w = rm.nextInt() >> rm.nextInt(32);
+			edges.add(e, ~e, w);
+			checksum += e + w;
+		}
+		EdgeArray copy = new EdgeArray(edges.x.clone(), edges.y.clone(), edges.weight.clone(), m);
+		long start = System.currentTimeMillis();
+		edges.sortByWeight();
+		long elapsed = System.currentTimeMillis() - start;
+		start = System.currentTimeMillis();
+		copy.parallelSortByWeight();
+		long parallel = System.currentTimeMillis() - start;
+		System.out.println(m + " edges sorted by weight in " + elapsed + " ms, in parallel in " + parallel
+			+ " ms, sorted: " + (edges.isSorted(checksum) && copy.isSorted(checksum)));
+	}
+
+	// Weights ascending, x and y still belong together, nothing lost.
+	private boolean isSorted(long checksum) {
+		boolean sorted = true;
+		long after = 0;
+		for (int e = 0; e < count; e++) {
+			sorted &= e == 0 || weight[e - 1] <= weight[e];
+			sorted &= y[e] == ~x[e];
+			after += x[e] + weight[e];
+		}
+		return sorted && after == checksum;
+	}
+}
@@ -0,0 +1,297 @@
+/* Streaming answer to the friend circle queries:
+ * after every pair (a, b) of friends, print the size of the largest circle.
+ * URL: https://www.hackerrank.com/challenges/friend-circle-queries/problem
+ *
+ * Ids are arbitrary ints, so they are first remapped to dense indices
+ * 0, 1, 2, ... with an open-addressing int -> int hash map (no boxing).
+ * The dense indices feed a growable union-find with path halving and union
+ * by size; the largest circle can only grow, so after each union it is
+ * max(largest, size of the new root).
+ * Input is parsed straight from bytes, either read from an InputStream or
+ * copied out of a memory-mapped file, and the answers are written as ASCII
+ * digits into one byte buffer which is flushed when full. Nothing is
+ * allocated per query.
+ */
+
+package disjoint_set;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+public class FriendCircleEngine {
+	private static final int BUFFER = 1 << 16;
+	private static final long MAX_MAP = 1L << 28;
+
+	// Open addressing, linear probing; index[slot] == -1 marks a free slot.
+	private int[] keys = new int[1 << 10];
+	private int[] index = filled(1 << 10);
+	private int mask = (1 << 10) - 1;
+
+	private int[] parent = new int[1 << 10];
+	private int[] size = new int[1 << 10];
+	private int elements;
+	private int largest;
+
+	// Parser state, kept across buffers so numbers may span two of them.
+	private final boolean skipCount;
+	private boolean started;
+	private int number;
+	private boolean negative;
+	private boolean inNumber;
+	private boolean haveFirst;
+	private int first;
+
+	private final byte[] out = new byte[BUFFER];
+	private int outSize;
+	private OutputStream sink;
+
+	/* skipCount: the input starts with the number of queries, as on
+	 * HackerRank; that number is ignored and pairs are read until the end.
+	 */
+	public FriendCircleEngine(boolean skipCount) {
+		this.skipCount = skipCount;
+	}
+
+	public FriendCircleEngine() {
+		this(false);
+	}
+
+	private static int[] filled(int length) {
+		int[] a = new int[length];
+		Arrays.fill(a, -1);
+		return a;
+	}
+
+	private static int hash(int x) {
+		x ^= x >>> 16;
+		x *= 0x85ebca6b;
+		x ^= x >>> 13;
+		return x;
+	}
+
+	// Dense index of id, assigning the next one to a new id.
+	private int indexOf(int id) {
+		int slot = hash(id) & mask;
+		while (index[slot] != -1) {
+			if (keys[slot] == id) {
+				return index[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		int v = elements++;
+		keys[slot] = id;
+		index[slot] = v;
+		if (v == parent.length) {
+			parent = Arrays.copyOf(parent, v * 2);
+			size = Arrays.copyOf(size, v * 2);
+		}
+		parent[v] = v;
+		size[v] = 1;
+		if (elements * 2 > keys.length) {
+			rehash();
+		}
+		return v;
+	}
+
+	private void rehash() {
+		int[] oldKeys = keys;
+		int[] oldIndex = index;
+		keys = new int[oldKeys.length * 2];
+		index = filled(oldKeys.length * 2);
+		mask = keys.length - 1;
+		for (int s = 0; s < oldKeys.length; s++) {
+			if (oldIndex[s] != -1) {
+				int slot = hash(oldKeys[s]) & mask;
+				while (index[slot] != -1) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[s];
+				index[slot] = oldIndex[s];
+			}
+		}
+	}
+
+	private int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	// Make a and b friends; returns the size of the largest circle.
+	public int union(int a, int b) {
+		int rootA = find(indexOf(a));
+		int rootB = find(indexOf(b));
+		if (rootA != rootB) {
+			if (size[rootA] < size[rootB]) {
+				int temp = rootA;
+				rootA = rootB;
+				rootB = temp;
+			}
+			parent[rootB] = rootA;
+			size[rootA] += size[rootB];
+		}
+		largest = Math.max(largest, size[rootA]);
+		return largest;
+	}
+
+	public int largest() {
+		return largest;
+	}
+
+	// Number of distinct ids seen so far.
+	public int people() {
+		return elements;
+	}
+
+	// Answer every pair of in, one line per pair on out.
+	public void process(InputStream in, OutputStream out) throws IOException {
+		sink = out;
+		byte[] buffer = new byte[BUFFER];
+		int read;
+		while ((read = in.read(buffer)) > 0) {
+			feed(buffer, read);
+		}
+		finish();
+	}
+
+	// Same as process(), reading filename through FileChannel.map.
+	public void processFile(String filename, OutputStream out) throws IOException {
+		sink = out;
+		byte[] buffer = new byte[BUFFER];
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+				FileChannel channel = file.getChannel()) {
+			long length = channel.size();
+			for (long at = 0; at < length; at += MAX_MAP) {
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, at,
+					Math.min(MAX_MAP, length - at));
+				while (mapped.hasRemaining()) {
+					int n = Math.min(BUFFER, mapped.remaining());
+					mapped.get(buffer, 0, n);
+					feed(buffer, n);
+				}
+			}
+		}
+		finish();
+	}
+
+	private void feed(byte[] buffer, int length) throws IOException {
+		for (int i = 0; i < length; i++) {
+			byte c = buffer[i];
+			if (c >= '0' && c <= '9') {
+				number = number * 10 + (c - '0');
+				inNumber = true;
+			}
+			else if (c == '-') {
+				negative = true;
+			}
+			else if (inNumber) {
+				value(negative ? -number : number);
+			}
+			else {
+				negative = false;
+			}
+		}
+	}
+
+	private void finish() throws IOException {
+		if (inNumber) {
+			value(negative ? -number : number);
+		}
+		sink.write(out, 0, outSize);
+		sink.flush();
+		outSize = 0;
+	}
+
+	private void value(int v) throws IOException {
+		number = 0;
+		negative = false;
+		inNumber = false;
+		if (skipCount && !started) {
+			started = true;
+			return;
+		}
+		started = true;
+		if (!haveFirst) {
+			first = v;
+			haveFirst = true;
+			return;
+		}
+		haveFirst = false;
+		write(union(first, v));
+	}
+
+	private void write(int v) throws IOException {
+		if (outSize + 12 > out.length) {
+			sink.write(out, 0, outSize);
+			outSize = 0;
+		}
+		int start = outSize;
+		do {
+			out[outSize++] = (byte) ('0' + v % 10);
+			v /= 10;
+		} while (v > 0);
+		// Digits came out backwards.
+		for (int i = start, j = outSize - 1; i < j; i++, j--) {
+			byte t = out[i];
+			out[i] = out[j];
+			out[j] = t;
+		}
+		out[outSize++] = '\n';
+	}
+
+	/* Usage: java disjoint_set.FriendCircleEngine < queries          (HackerRank input)
+	 *        java disjoint_set.FriendCircleEngine <file> [output]   (pairs only, mapped)
+	 *        java disjoint_set.FriendCircleEngine -bench [queries]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			new FriendCircleEngine(true).process(System.in, System.out);
+			return;
+		}
+		if (!args[0].equals("-bench")) {
+			OutputStream out = args.length > 1
+				? new BufferedOutputStream(new FileOutputStream(args[1])) : System.out;
+			new FriendCircleEngine().processFile(args[0], out);
+			out.close();
+			return;
+		}
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+		// Sparse ids up to 10^9, as in the problem.
+		Random rm = new Random(5);
+		int[] ids = new int[queries];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = 1 + rm.nextInt(1000000000);
+		}
+		StringBuilder text = new StringBuilder();
+		text.append(queries).append('\n');
+		for (int q = 0; q < queries; q++) {
+			text.append(ids[rm.nextInt(queries)]).append(' ').append(ids[rm.nextInt(queries)]).append('\n');
+		}
+		byte[] input = text.toString().getBytes();
+		OutputStream discard = new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		};
+		FriendCircleEngine engine = new FriendCircleEngine(true);
+		long start = System.currentTimeMillis();
+		engine.process(new ByteArrayInputStream(input), discard);
+		long elapsed = Math.max(1, System.currentTimeMillis() - start);
+		System.out.println(queries + " queries, " + engine.people() + " people, largest circle "
+			+ engine.largest() + ": " + elapsed + " ms, " + (queries * 1000L / elapsed) + " queries/s");
+	}
+}
@@ -30,17 +30,19 @@ class UnionFind {
 		}
 	}
 
-	// Here, need to implement path compression to improve traversal of the parent tree.
+	// Root of x. Iterative with path halving: every node on the way up is
+	// pointed at its grandparent, so long chains cannot overflow the stack.
 	int findParent(int x) {
-		if (parent[x] != x) {
-			parent[x] = findParent(parent[x]);
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
 		}
 		return x;
 	}
 
 	// Union of the nodes by rank
-	// Based on the rank, combine the nodes so that the rank of x after the union is one
-	// more than the old one.
+	// The root of lower rank goes under the other one; only when both ranks
+	// are equal does the rank of the new root grow by one.
 
 	void unionByRank(int x, int y) {
 		int parentX = findParent(x);
@@ -51,15 +53,15 @@ class UnionFind {
 			return;
 		}
 
-		else if (rank[x] > rank[y]) {
-			parent[y] = parentX;
+		else if (rank[parentX] > rank[parentY]) {
+			parent[parentY] = parentX;
 		}
-		else if (rank[x] < rank[y]) {
-			parent[x] = parentY;
+		else if (rank[parentX] < rank[parentY]) {
+			parent[parentX] = parentY;
 		}
 		else {
-			parent[x] = parentY;
-			rank[y]++;
+			parent[parentX] = parentY;
+			rank[parentY]++;
 		}
 	}
 
@@ -76,9 +78,9 @@ class UnionFind {
 		Collections.sort(edges, new Comparator<Edge>() {
 			@Override
 			public int compare(Edge a, Edge b) {
-				if (a.weight < b.weight)
-					return -1;
-				return 1;
+				// Must return 0 for equal weights, or the sort may throw
+				// "Comparison method violates its general contract".
+				return Integer.compare(a.weight, b.weight);
 			}
 		});
 	}
@@ -115,22 +117,19 @@ class UnionFind {
 
 
 public class FriendCircleQuery {
-	// Get the total number of nodes present in the graph/edgelist.
-	// This works provided the edgelist has consecutive node numbers assigned and they are positive.
+	// Get the total number of nodes present in the graph/edgelist: largest id + 1,
+	// so that every id is a valid index. Both endpoints of every edge count.
+	// This works provided the edgelist has consecutive node numbers assigned and they are positive;
+	// for sparse ids use KeyedDisjointSet.
 	public static int totalNodes(Vector<Edge> edgelist) {
 		Iterator<Edge> it = edgelist.iterator();
 
-		int totalNodes = -1;
+		int maxNode = -1;
 		while (it.hasNext()) {
 			Edge edge = it.next();
-			if (totalNodes < edge.x) {
-				totalNodes = edge.x;
-			} 
-			else if (totalNodes < edge.y) {
-				totalNodes = edge.y;
-			}
+			maxNode = Math.max(maxNode, Math.max(edge.x, edge.y));
 		}
-		return totalNodes;
+		return maxNode + 1;
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,206 @@
+/* Disjoint set over arbitrary long keys (sparse ids up to 10^18 and beyond).
+ *
+ * Keys are mapped to dense indices 0, 1, 2, ... in the order they are first
+ * seen, with an open-addressing long -> int map (linear probing, load
+ * factor at most 1/2, no boxing). The dense indices address the same kind
+ * of union-find as DisjointSet: path halving and union by size.
+ * Every array starts small and doubles when full, so memory stays
+ * proportional to the number of distinct keys, whatever their range.
+ */
+
+package disjoint_set;
+import java.util.Arrays;
+import java.util.Random;
+
+public class KeyedDisjointSet {
+	// Hash table; slots[s] == -1 marks a free slot, otherwise it is the index of tableKeys[s].
+	private long[] tableKeys;
+	private int[] slots;
+	private int mask;
+
+	// Per dense index.
+	private long[] keys;
+	private int[] parent;
+	private int[] size;
+	private int count;
+	private int components;
+
+	public KeyedDisjointSet(int expectedKeys) {
+		int capacity = Integer.highestOneBit(Math.max(8, expectedKeys) * 2 - 1) * 2;
+		tableKeys = new long[capacity];
+		slots = new int[capacity];
+		Arrays.fill(slots, -1);
+		mask = capacity - 1;
+		int elements = Math.max(8, expectedKeys);
+		keys = new long[elements];
+		parent = new int[elements];
+		size = new int[elements];
+	}
+
+	public KeyedDisjointSet() {
+		this(16);
+	}
+
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	// Dense index of key, or -1 when the key was never seen.
+	public int indexOf(long key) {
+		int s = hash(key) & mask;
+		while (slots[s] != -1) {
+			if (tableKeys[s] == key) {
+				return slots[s];
+			}
+			s = (s + 1) & mask;
+		}
+		return -1;
+	}
+
+	// Dense index of key, adding key as a new singleton set if needed.
+	public int add(long key) {
+		int s = hash(key) & mask;
+		while (slots[s] != -1) {
+			if (tableKeys[s] == key) {
+				return slots[s];
+			}
+			s = (s + 1) & mask;
+		}
+		int v = count++;
+		tableKeys[s] = key;
+		slots[s] = v;
+		if (v == parent.length) {
+			keys = Arrays.copyOf(keys, v * 2);
+			parent = Arrays.copyOf(parent, v * 2);
+			size = Arrays.copyOf(size, v * 2);
+		}
+		keys[v] = key;
+		parent[v] = v;
+		size[v] = 1;
+		components++;
+		if (count * 2 > tableKeys.length) {
+			rehash();
+		}
+		return v;
+	}
+
+	private void rehash() {
+		long[] oldKeys = tableKeys;
+		int[] oldSlots = slots;
+		tableKeys = new long[oldKeys.length * 2];
+		slots = new int[oldKeys.length * 2];
+		Arrays.fill(slots, -1);
+		mask = tableKeys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldSlots[i] != -1) {
+				int s = hash(oldKeys[i]) & mask;
+				while (slots[s] != -1) {
+					s = (s + 1) & mask;
+				}
+				tableKeys[s] = oldKeys[i];
+				slots[s] = oldSlots[i];
+			}
+		}
+	}
+
+	// Key of a dense index.
+	public long key(int index) {
+		return keys[index];
+	}
+
+	private int root(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	// Key representing the set of key; key itself when it was never seen.
+	public long find(long key) {
+		int v = indexOf(key);
+		return v == -1 ? key : keys[root(v)];
+	}
+
+	// Returns false when a and b were already in the same set.
+	public boolean union(long a, long b) {
+		int rootA = root(add(a));
+		int rootB = root(add(b));
+		if (rootA == rootB) {
+			return false;
+		}
+		if (size[rootA] < size[rootB]) {
+			int temp = rootA;
+			rootA = rootB;
+			rootB = temp;
+		}
+		parent[rootB] = rootA;
+		size[rootA] += size[rootB];
+		components--;
+		return true;
+	}
+
+	public boolean connected(long a, long b) {
+		if (a == b) {
+			return true;
+		}
+		int va = indexOf(a);
+		int vb = indexOf(b);
+		return va != -1 && vb != -1 && root(va) == root(vb);
+	}
+
+	// Size of the set of key; 1 for a key never seen.
+	public int componentSize(long key) {
+		int v = indexOf(key);
+		return v == -1 ? 1 : size[root(v)];
+	}
+
+	// Number of sets among the keys seen so far.
+	public int componentCount() {
+		return components;
+	}
+
+	// Number of distinct keys seen so far.
+	public int keyCount() {
+		return count;
+	}
+
+	/* Random unions over sparse keys up to 10^18, checked against a
+	 * DisjointSet on the dense indices of the same keys.
+	 * Usage: java disjoint_set.KeyedDisjointSet [distinct keys] [unions]
+	 */
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int unions = args.length > 1 ? Integer.parseInt(args[1]) : 4000000;
+		Random rm = new Random(9);
+		long[] ids = new long[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = (rm.nextLong() >>> 1) % 1000000000000000000L;
+		}
+		KeyedDisjointSet keyed = new KeyedDisjointSet();
+		DisjointSet dense = new DisjointSet(n);
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < unions; i++) {
+			int a = rm.nextInt(n);
+			int b = rm.nextInt(n);
+			keyed.union(ids[a], ids[b]);
+			dense.union(a, b);
+		}
+		long elapsed = System.currentTimeMillis() - start;
+		boolean same = true;
+		for (int i = 0; i < 1000; i++) {
+			int a = rm.nextInt(n);
+			int b = rm.nextInt(n);
+			same &= keyed.connected(ids[a], ids[b]) == dense.connected(a, b);
+			same &= keyed.componentSize(ids[a]) == dense.componentSize(a);
+		}
+		// Keys never used in a union are singletons the dense set counts too.
+		int untouched = n - keyed.keyCount();
+		System.out.println(unions + " unions over " + keyed.keyCount() + " keys: "
+			+ (keyed.componentCount() + untouched) + " components (dense: " + dense.componentCount()
+			+ "), " + elapsed + " ms, matches: " + same);
+	}
+}
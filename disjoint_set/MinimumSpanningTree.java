@@ -0,0 +1,174 @@
+/* Minimum spanning tree (forest) of a weighted undirected edge list.
+ *
+ * The edges are held in an EdgeArray (int columns x, y, weight) and sorted
+ * by weight in place with its parallel radix sort when the tree is
+ * constructed, so edge indices refer to the sorted order. The sort needs no
+ * memory beyond the 12 bytes an edge; its first pass over all edges is
+ * sequential, every bucket after it is sorted in parallel.
+ *
+ * Kruskal: walk the sorted edges and keep every edge whose endpoints are
+ * still in different sets of a DisjointSet. No Edge objects, keys or
+ * Comparator calls are involved.
+ *
+ * Boruvka: every round each component picks its cheapest outgoing edge, all
+ * of them are added at once and the components merge. The cheapest-edge scan
+ * is the expensive part and runs in parallel; a component keeps its best key
+ * in an AtomicLongArray updated with CAS. There are at most log(n) rounds.
+ * Ties are broken by edge index (position in the sorted order) so both
+ * algorithms return the same forest.
+ *
+ * Edge list file format, one edge per line: <node> <node> <weight>
+ * (read with graphs.EdgeListReader)
+ */
+
+package disjoint_set;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+public class MinimumSpanningTree {
+	final int totalNodes;
+	final int edgeCount;
+	final int[] x;
+	final int[] y;
+	final int[] weight;
+
+	// Sorts edges by weight in place; the EdgeArray is shared, not copied.
+	public MinimumSpanningTree(int totalNodes, EdgeArray edges) {
+		edges.parallelSortByWeight();
+		this.totalNodes = totalNodes;
+		this.x = edges.x;
+		this.y = edges.y;
+		this.weight = edges.weight;
+		this.edgeCount = edges.count;
+	}
+
+	// Copies the first edgeCount entries of the columns; the caller's arrays
+	// are left as they are.
+	public MinimumSpanningTree(int totalNodes, int[] x, int[] y, int[] weight, int edgeCount) {
+		this(totalNodes, new EdgeArray(Arrays.copyOf(x, edgeCount), Arrays.copyOf(y, edgeCount),
+			Arrays.copyOf(weight, edgeCount), edgeCount));
+	}
+
+	// Read an edge list; nodes are numbered from 0 or 1 and the largest id
+	// decides the number of nodes.
+	public static MinimumSpanningTree fromFile(String filename) throws IOException {
+		EdgeArray edges = EdgeArray.fromFile(filename);
+		return new MinimumSpanningTree(edges.nodeCount(), edges);
+	}
+
+	private long key(int edge) {
+		return ((long) weight[edge] << 32) | edge;
+	}
+
+	// Indices of the forest edges, in the order Kruskal picks them.
+	public int[] kruskal() {
+		DisjointSet forest = new DisjointSet(totalNodes);
+		int[] chosen = new int[Math.max(0, totalNodes - 1)];
+		int picked = 0;
+		for (int e = 0; e < edgeCount && picked < chosen.length; e++) {
+			if (forest.union(x[e], y[e])) {
+				chosen[picked++] = e;
+			}
+		}
+		return Arrays.copyOf(chosen, picked);
+	}
+
+	// Indices of the forest edges, picked in parallel rounds.
+	public int[] boruvka() {
+		DisjointSet forest = new DisjointSet(totalNodes);
+		int[] component = new int[totalNodes];
+		AtomicLongArray cheapest = new AtomicLongArray(totalNodes);
+		int[] active = IntStream.range(0, edgeCount).toArray();
+		int[] chosen = new int[Math.max(0, totalNodes - 1)];
+		int picked = 0;
+
+		while (active.length > 0) {
+			// Flatten every tree so the parallel scan only reads component[].
+			for (int v = 0; v < totalNodes; v++) {
+				component[v] = forest.find(v);
+				cheapest.set(v, Long.MAX_VALUE);
+			}
+			active = IntStream.of(active).parallel()
+				.filter(e -> component[x[e]] != component[y[e]])
+				.toArray();
+			IntStream.of(active).parallel().forEach(e -> {
+				long k = key(e);
+				offer(cheapest, component[x[e]], k);
+				offer(cheapest, component[y[e]], k);
+			});
+			for (int v = 0; v < totalNodes; v++) {
+				long k = cheapest.get(v);
+				if (component[v] == v && k != Long.MAX_VALUE) {
+					int e = (int) k;
+					// Both endpoints may have picked the same edge.
+					if (forest.union(x[e], y[e])) {
+						chosen[picked++] = e;
+					}
+				}
+			}
+		}
+		return Arrays.copyOf(chosen, picked);
+	}
+
+	private static void offer(AtomicLongArray cheapest, int component, long key) {
+		long current = cheapest.get(component);
+		while (key < current && !cheapest.compareAndSet(component, current, key)) {
+			current = cheapest.get(component);
+		}
+	}
+
+	public long totalWeight(int[] edges) {
+		long total = 0;
+		for (int e : edges) {
+			total += weight[e];
+		}
+		return total;
+	}
+
+	public void printEdges(int[] edges) {
+		for (int e : edges) {
+			System.out.println(x[e] + " " + y[e] + " " + weight[e]);
+		}
+	}
+
+	static MinimumSpanningTree randomGraph(int totalNodes, int edgeCount, long seed) {
+		Random rm = new Random(seed);
+		EdgeArray edges = new EdgeArray(edgeCount);
+		for (int e = 0; e < edgeCount; e++) {
+			edges.add(rm.nextInt(totalNodes), rm.nextInt(totalNodes), rm.nextInt(1000000));
+		}
+		return new MinimumSpanningTree(totalNodes, edges);
+	}
+
+	// Usage: java disjoint_set.MinimumSpanningTree [edgelist file]
+	//        java disjoint_set.MinimumSpanningTree <nodes> <edges>   (random graph)
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			MinimumSpanningTree mst = fromFile(args.length == 1 ? args[0] : "edgelist");
+			int[] edges = mst.kruskal();
+			System.out.println("-------Minimum spanning forest (Kruskal)--------");
+			mst.printEdges(edges);
+			System.out.println("Total weight: " + mst.totalWeight(edges));
+			System.out.println("Boruvka total weight: " + mst.totalWeight(mst.boruvka()));
+			return;
+		}
+		int nodes = Integer.parseInt(args[0]);
+		int edgeCount = Integer.parseInt(args[1]);
+		long start = System.currentTimeMillis();
+		MinimumSpanningTree mst = randomGraph(nodes, edgeCount, 3);
+		System.out.println("Generated and sorted " + edgeCount + " edges in "
+			+ (System.currentTimeMillis() - start) + " ms");
+		start = System.currentTimeMillis();
+		int[] kruskal = mst.kruskal();
+		long middle = System.currentTimeMillis();
+		int[] boruvka = mst.boruvka();
+		long end = System.currentTimeMillis();
+		System.out.println("Kruskal: " + kruskal.length + " edges, weight " + mst.totalWeight(kruskal)
+			+ ", " + (middle - start) + " ms");
+		System.out.println("Boruvka: " + boruvka.length + " edges, weight " + mst.totalWeight(boruvka)
+			+ ", " + (end - middle) + " ms");
+	}
+}
@@ -0,0 +1,285 @@
+/* Offline dynamic connectivity: edges are added and removed over time and
+ * queries ask whether two vertices are connected at that moment. All
+ * operations are known before answering.
+ *
+ * Operation i happens at time i. Every edge is alive on an interval of
+ * times [added, removed), which a segment tree over time splits into
+ * O(log q) nodes, the edge being stored at each. A DFS of the segment tree
+ * unions the edges of a node when entering it and rolls them back when
+ * leaving (RollbackDisjointSet), so at the leaf of time t the union-find
+ * holds exactly the edges alive at t. Each edge is unioned O(log q) times at
+ * O(log n) a find: O(q log q log n) overall.
+ *
+ * Edges are undirected. Adding an edge that is already present, or removing
+ * one that is not, is ignored.
+ */
+
+package disjoint_set;
+import java.util.Arrays;
+import java.util.Random;
+
+public class OfflineConnectivity {
+	private static final int ADD = 0, REMOVE = 1, QUERY = 2;
+
+	private final int totalNodes;
+	private int[] type = new int[64];
+	private int[] first = new int[64];
+	private int[] second = new int[64];
+	private int operations;
+	private int queries;
+
+	public OfflineConnectivity(int totalNodes) {
+		this.totalNodes = totalNodes;
+	}
+
+	private void record(int kind, int u, int v) {
+		if (u < 0 || u >= totalNodes || v < 0 || v >= totalNodes) {
+			throw new IllegalArgumentException("Vertex out of range: " + u + ", " + v);
+		}
+		if (operations == type.length) {
+			type = Arrays.copyOf(type, operations * 2);
+			first = Arrays.copyOf(first, operations * 2);
+			second = Arrays.copyOf(second, operations * 2);
+		}
+		type[operations] = kind;
+		first[operations] = Math.min(u, v);
+		second[operations] = Math.max(u, v);
+		operations++;
+	}
+
+	public void addEdge(int u, int v) {
+		record(ADD, u, v);
+	}
+
+	public void removeEdge(int u, int v) {
+		record(REMOVE, u, v);
+	}
+
+	// Returns the index of this query in the array returned by solve().
+	public int query(int u, int v) {
+		record(QUERY, u, v);
+		return queries++;
+	}
+
+	// Edge intervals stored at segment tree nodes, as linked lists in int arrays.
+	private int[] head;
+	private int[] next;
+	private int[] edgeU;
+	private int[] edgeV;
+	private int stored;
+	// State of the DFS in solve().
+	private RollbackDisjointSet set;
+	private boolean[] answer;
+	private int[] queryIndex;
+
+	public boolean[] solve() {
+		int q = Math.max(1, operations);
+		int leaves = Integer.highestOneBit(q * 2 - 1);
+		head = new int[2 * leaves];
+		Arrays.fill(head, -1);
+		next = new int[64];
+		edgeU = new int[64];
+		edgeV = new int[64];
+		stored = 0;
+
+		// Time each present edge was added, -1 while it is absent.
+		int[] edge = new int[operations];
+		int edges = numberEdges(edge);
+		int[] since = new int[edges];
+		Arrays.fill(since, -1);
+		for (int t = 0; t < operations; t++) {
+			int e = edge[t];
+			if (type[t] == ADD) {
+				if (since[e] == -1) {
+					since[e] = t;
+				}
+			}
+			else if (type[t] == REMOVE) {
+				if (since[e] != -1) {
+					insert(1, 0, leaves, since[e], t, first[t], second[t]);
+					since[e] = -1;
+				}
+			}
+		}
+		for (int t = 0; t < operations; t++) {
+			int e = edge[t];
+			if (type[t] != QUERY && since[e] != -1) {
+				insert(1, 0, leaves, since[e], operations, first[t], second[t]);
+				since[e] = -1;
+			}
+		}
+
+		answer = new boolean[queries];
+		queryIndex = new int[operations];
+		for (int t = 0, k = 0; t < operations; t++) {
+			if (type[t] == QUERY) {
+				queryIndex[t] = k++;
+			}
+		}
+		set = new RollbackDisjointSet(totalNodes);
+		// Recursion depth is only log(q).
+		visit(1, 0, leaves);
+		return answer;
+	}
+
+	/* Number the distinct edges of the add and remove operations 0, 1, ...
+	 * into edge[t], through an open-addressing table on the (first, second)
+	 * pair packed in a long (linear probing, at most half full, no boxing).
+	 * Returns the number of distinct edges.
+	 */
+	private int numberEdges(int[] edge) {
+		int capacity = Integer.highestOneBit(Math.max(8, operations) * 2 - 1) * 2;
+		int mask = capacity - 1;
+		long[] tableKeys = new long[capacity];
+		int[] slots = new int[capacity];
+		Arrays.fill(slots, -1);
+		int edges = 0;
+		for (int t = 0; t < operations; t++) {
+			if (type[t] == QUERY) {
+				edge[t] = -1;
+				continue;
+			}
+			long key = ((long) first[t] << 32) | second[t];
+			long h = key ^ (key >>> 33);
+			h *= 0xff51afd7ed558ccdL;
+			int s = (int) (h ^ (h >>> 33)) & mask;
+			while (slots[s] != -1 && tableKeys[s] != key) {
+				s = (s + 1) & mask;
+			}
+			if (slots[s] == -1) {
+				tableKeys[s] = key;
+				slots[s] = edges++;
+			}
+			edge[t] = slots[s];
+		}
+		return edges;
+	}
+
+	private void visit(int node, int lo, int hi) {
+		if (lo >= operations) {
+			return;
+		}
+		int snapshot = set.snapshot();
+		for (int i = head[node]; i != -1; i = next[i]) {
+			set.union(edgeU[i], edgeV[i]);
+		}
+		if (hi - lo == 1) {
+			if (type[lo] == QUERY) {
+				answer[queryIndex[lo]] = set.connected(first[lo], second[lo]);
+			}
+		}
+		else {
+			int mid = (lo + hi) >>> 1;
+			visit(2 * node, lo, mid);
+			visit(2 * node + 1, mid, hi);
+		}
+		set.rollback(snapshot);
+	}
+
+	// Store edge (u, v), alive on [from, to), at the nodes covering it.
+	private void insert(int node, int lo, int hi, int from, int to, int u, int v) {
+		if (to <= lo || hi <= from) {
+			return;
+		}
+		if (from <= lo && hi <= to) {
+			if (stored == next.length) {
+				next = Arrays.copyOf(next, stored * 2);
+				edgeU = Arrays.copyOf(edgeU, stored * 2);
+				edgeV = Arrays.copyOf(edgeV, stored * 2);
+			}
+			edgeU[stored] = u;
+			edgeV[stored] = v;
+			next[stored] = head[node];
+			head[node] = stored++;
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		insert(2 * node, lo, mid, from, to, u, v);
+		insert(2 * node + 1, mid, hi, from, to, u, v);
+	}
+
+	/* Random operations, checked against a DisjointSet rebuilt from the live
+	 * edges at every query (small sizes), then timed on a large run.
+	 * Usage: java disjoint_set.OfflineConnectivity [vertices] [operations]
+	 */
+	public static void main(String[] args) {
+		OfflineConnectivity small = new OfflineConnectivity(4);
+		small.addEdge(0, 1);
+		small.addEdge(1, 2);
+		small.query(0, 2);
+		small.removeEdge(1, 2);
+		small.query(0, 2);
+		small.addEdge(2, 3);
+		small.addEdge(3, 1);
+		small.query(0, 2);
+		System.out.println("Answers: " + Arrays.toString(small.solve()));
+
+		Random rm = new Random(3);
+		boolean same = true;
+		for (int round = 0; round < 200; round++) {
+			int n = 2 + rm.nextInt(10);
+			OfflineConnectivity offline = new OfflineConnectivity(n);
+			boolean[][] live = new boolean[n][n];
+			boolean[] expected = new boolean[200];
+			int asked = 0;
+			for (int op = 0; op < 200; op++) {
+				int u = rm.nextInt(n), v = rm.nextInt(n);
+				int kind = rm.nextInt(3);
+				if (kind == ADD) {
+					offline.addEdge(u, v);
+					live[Math.min(u, v)][Math.max(u, v)] = true;
+				}
+				else if (kind == REMOVE) {
+					offline.removeEdge(u, v);
+					live[Math.min(u, v)][Math.max(u, v)] = false;
+				}
+				else {
+					offline.query(u, v);
+					DisjointSet check = new DisjointSet(n);
+					for (int a = 0; a < n; a++) {
+						for (int b = a; b < n; b++) {
+							if (live[a][b]) {
+								check.union(a, b);
+							}
+						}
+					}
+					expected[asked++] = check.connected(u, v);
+				}
+			}
+			same &= Arrays.equals(offline.solve(), Arrays.copyOf(expected, asked));
+		}
+		System.out.println("Random rounds match brute force: " + same);
+
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int ops = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		OfflineConnectivity big = new OfflineConnectivity(n);
+		int[] addedU = new int[ops], addedV = new int[ops];
+		int added = 0;
+		for (int op = 0; op < ops; op++) {
+			int kind = rm.nextInt(3);
+			if (kind == REMOVE && added > 0) {
+				int e = rm.nextInt(added);
+				big.removeEdge(addedU[e], addedV[e]);
+			}
+			else if (kind == QUERY) {
+				big.query(rm.nextInt(n), rm.nextInt(n));
+			}
+			else {
+				addedU[added] = rm.nextInt(n);
+				addedV[added] = rm.nextInt(n);
+				big.addEdge(addedU[added], addedV[added]);
+				added++;
+			}
+		}
+		long start = System.currentTimeMillis();
+		boolean[] answers = big.solve();
+		int yes = 0;
+		for (boolean a : answers) {
+			if (a) {
+				yes++;
+			}
+		}
+		System.out.println(ops + " operations, " + answers.length + " queries (" + yes + " connected) in "
+			+ (System.currentTimeMillis() - start) + " ms");
+	}
+}
@@ -0,0 +1,109 @@
+/* Union-find whose unions can be undone.
+ *
+ * Union by rank without path compression: find() never changes the forest,
+ * so a union changes exactly one parent pointer (and maybe one rank) and is
+ * undone by restoring them. The trees stay O(log n) deep, so find() is
+ * O(log n) worst case rather than amortized.
+ * Every successful union pushes the root it linked on a history stack.
+ * snapshot() is just the current stack height; rollback(snapshot) pops and
+ * unlinks until the stack is back at that height, in O(1) per union undone.
+ */
+
+package disjoint_set;
+import java.util.Arrays;
+
+public class RollbackDisjointSet {
+	private final int[] parent;
+	private final int[] rank;
+	// Root linked by each union, with the sign bit set when the rank of its new parent grew.
+	private int[] history = new int[64];
+	private int unions;
+	private int components;
+
+	public RollbackDisjointSet(int totalNodes) {
+		parent = new int[totalNodes];
+		rank = new int[totalNodes];
+		for (int i = 0; i < totalNodes; i++) {
+			parent[i] = i;
+		}
+		components = totalNodes;
+	}
+
+	public int find(int x) {
+		while (parent[x] != x) {
+			x = parent[x];
+		}
+		return x;
+	}
+
+	// Returns false, and records nothing, when a and b were already connected.
+	public boolean union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB) {
+			return false;
+		}
+		if (rank[rootA] < rank[rootB]) {
+			int temp = rootA;
+			rootA = rootB;
+			rootB = temp;
+		}
+		parent[rootB] = rootA;
+		boolean grew = rank[rootA] == rank[rootB];
+		if (grew) {
+			rank[rootA]++;
+		}
+		if (unions == history.length) {
+			history = Arrays.copyOf(history, unions * 2);
+		}
+		history[unions++] = grew ? rootB | Integer.MIN_VALUE : rootB;
+		components--;
+		return true;
+	}
+
+	public boolean connected(int a, int b) {
+		return find(a) == find(b);
+	}
+
+	public int componentCount() {
+		return components;
+	}
+
+	// Point to come back to with rollback().
+	public int snapshot() {
+		return unions;
+	}
+
+	// Undo every union made after snapshot was taken, newest first.
+	public void rollback(int snapshot) {
+		if (snapshot < 0 || snapshot > unions) {
+			throw new IllegalArgumentException("Invalid snapshot " + snapshot);
+		}
+		while (unions > snapshot) {
+			int entry = history[--unions];
+			int child = entry & Integer.MAX_VALUE;
+			int root = parent[child];
+			if (entry < 0) {
+				rank[root]--;
+			}
+			parent[child] = child;
+			components++;
+		}
+	}
+
+	// Usage: java disjoint_set.RollbackDisjointSet
+	public static void main(String[] args) {
+		RollbackDisjointSet set = new RollbackDisjointSet(6);
+		set.union(0, 1);
+		set.union(2, 3);
+		int before = set.snapshot();
+		System.out.println("Components: " + set.componentCount());
+		set.union(1, 2);
+		set.union(4, 5);
+		System.out.println("After 1-2 and 4-5: " + set.componentCount() + " components, 0~3 "
+			+ set.connected(0, 3));
+		set.rollback(before);
+		System.out.println("Rolled back: " + set.componentCount() + " components, 0~3 "
+			+ set.connected(0, 3) + ", 0~1 " + set.connected(0, 1));
+	}
+}
@@ -0,0 +1,246 @@
+/* Connected components of a CsrGraph without recursion.
+ * A directed graph is treated as undirected (weakly connected components).
+ *
+ * SEQUENTIAL: union-find over an int[] with path halving, one union per arc.
+ * AFFOREST:   parallel Shiloach-Vishkin style linking with subgraph sampling.
+ *             Paper: Sutton, Ben-Nun, Barak - "Optimizing Parallel Graph
+ *             Connectivity Computation via Subgraph Sampling"
+ *             First only a couple of arcs per vertex are linked, which is
+ *             usually enough to form the giant component. Its label is then
+ *             estimated by sampling, and the remaining arcs are only scanned
+ *             for vertices outside of it. Labels live in an AtomicIntegerArray
+ *             and roots are hooked with CAS, always the larger id under the
+ *             smaller one.
+ *
+ * Both modes return a component id in [0, count) for every vertex, numbered
+ * in order of the smallest vertex of each component, plus the component sizes.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+public class ConnectedComponents {
+	public enum Mode { SEQUENTIAL, AFFOREST }
+
+	// Arcs per vertex linked before sampling the largest component.
+	private static final int NEIGHBOR_ROUNDS = 2;
+	private static final int SAMPLES = 1024;
+
+	final int[] id;
+	final int[] sizes;
+
+	private ConnectedComponents(int[] id, int[] sizes) {
+		this.id = id;
+		this.sizes = sizes;
+	}
+
+	public static ConnectedComponents find(CsrGraph graph, Mode mode) {
+		int[] label = mode == Mode.AFFOREST ? afforest(graph) : unionFind(graph);
+		return normalize(label);
+	}
+
+	public int componentOf(int v) {
+		return id[v];
+	}
+
+	public int[] componentIds() {
+		return id;
+	}
+
+	public int[] componentSizes() {
+		return sizes;
+	}
+
+	public int count() {
+		return sizes.length;
+	}
+
+	public int largestSize() {
+		int max = 0;
+		for (int s : sizes) {
+			max = Math.max(max, s);
+		}
+		return max;
+	}
+
+	private static int[] unionFind(CsrGraph graph) {
+		int n = graph.vertexCount();
+		int[] parent = new int[n];
+		for (int v = 0; v < n; v++) {
+			parent[v] = v;
+		}
+		for (int u = 0; u < n; u++) {
+			for (int i = graph.offsets[u]; i < graph.offsets[u + 1]; i++) {
+				int a = root(parent, u);
+				int b = root(parent, graph.targets[i]);
+				if (a != b) {
+					// Smaller id becomes the root, like the parallel mode.
+					if (a < b) {
+						parent[b] = a;
+					}
+					else {
+						parent[a] = b;
+					}
+				}
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			parent[v] = root(parent, v);
+		}
+		return parent;
+	}
+
+	private static int root(int[] parent, int v) {
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+	private static int[] afforest(CsrGraph graph) {
+		int n = graph.vertexCount();
+		CsrGraph incoming = graph.transpose();
+		AtomicIntegerArray comp = new AtomicIntegerArray(n);
+		IntStream.range(0, n).parallel().forEach(v -> comp.set(v, v));
+
+		for (int r = 0; r < NEIGHBOR_ROUNDS; r++) {
+			final int round = r;
+			IntStream.range(0, n).parallel().forEach(u -> {
+				int arc = graph.offsets[u] + round;
+				if (arc < graph.offsets[u + 1]) {
+					link(comp, u, graph.targets[arc]);
+				}
+			});
+			compress(comp, n);
+		}
+
+		int giant = sampleFrequentLabel(comp, n);
+		IntStream.range(0, n).parallel().forEach(u -> {
+			if (comp.get(u) == giant) {
+				return;
+			}
+			for (int i = graph.offsets[u] + NEIGHBOR_ROUNDS; i < graph.offsets[u + 1]; i++) {
+				link(comp, u, graph.targets[i]);
+			}
+			// The first arcs of a directed graph did not cover the incoming ones.
+			if (graph.isDirected()) {
+				for (int i = incoming.offsets[u]; i < incoming.offsets[u + 1]; i++) {
+					link(comp, u, incoming.targets[i]);
+				}
+			}
+		});
+		compress(comp, n);
+
+		int[] label = new int[n];
+		for (int v = 0; v < n; v++) {
+			label[v] = comp.get(v);
+		}
+		return label;
+	}
+
+	// Hook the root with the larger id under the smaller one, retrying when
+	// another thread moved either root in the meantime.
+	private static void link(AtomicIntegerArray comp, int u, int v) {
+		int p1 = comp.get(u);
+		int p2 = comp.get(v);
+		while (p1 != p2) {
+			int high = Math.max(p1, p2);
+			int low = Math.min(p1, p2);
+			int pHigh = comp.get(high);
+			if (pHigh == low) {
+				break;
+			}
+			if (pHigh == high && comp.compareAndSet(high, high, low)) {
+				break;
+			}
+			p1 = comp.get(comp.get(high));
+			p2 = comp.get(low);
+		}
+	}
+
+	// Point every vertex straight at its root.
+	private static void compress(AtomicIntegerArray comp, int n) {
+		IntStream.range(0, n).parallel().forEach(v -> {
+			int c = comp.get(v);
+			while (c != comp.get(c)) {
+				c = comp.get(c);
+			}
+			comp.set(v, c);
+		});
+	}
+
+	// Most frequent label among a few random vertices.
+	private static int sampleFrequentLabel(AtomicIntegerArray comp, int n) {
+		if (n == 0) {
+			return -1;
+		}
+		Random rm = new Random(27491095);
+		int[] sample = new int[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			sample[i] = comp.get(rm.nextInt(n));
+		}
+		Arrays.sort(sample);
+		int best = sample[0], bestRun = 0, run = 0;
+		for (int i = 0; i < SAMPLES; i++) {
+			run = (i > 0 && sample[i] == sample[i - 1]) ? run + 1 : 1;
+			if (run > bestRun) {
+				bestRun = run;
+				best = sample[i];
+			}
+		}
+		return best;
+	}
+
+	// Turn root labels into dense ids and count the members of each.
+	private static ConnectedComponents normalize(int[] label) {
+		int n = label.length;
+		int[] dense = new int[n];
+		Arrays.fill(dense, -1);
+		int count = 0;
+		for (int v = 0; v < n; v++) {
+			int root = label[v];
+			if (dense[root] == -1) {
+				dense[root] = count++;
+			}
+		}
+		int[] sizes = new int[count];
+		for (int v = 0; v < n; v++) {
+			label[v] = dense[label[v]];
+			sizes[label[v]]++;
+		}
+		return new ConnectedComponents(label, sizes);
+	}
+
+	// Usage: java graphs.ConnectedComponents [vertices] [edges]
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int m = args.length > 1 ? Integer.parseInt(args[1]) : 2000000;
+		Random rm = new Random(5);
+		int[] src = new int[m];
+		int[] dst = new int[m];
+		for (int i = 0; i < m; i++) {
+			src[i] = rm.nextInt(n);
+			dst[i] = rm.nextInt(n);
+		}
+		CsrGraph g = CsrGraph.fromEdges(n, src, dst, null, m, false);
+
+		int[] reference = null;
+		for (Mode mode : Mode.values()) {
+			long start = System.currentTimeMillis();
+			ConnectedComponents cc = find(g, mode);
+			long time = System.currentTimeMillis() - start;
+			System.out.println(mode + ": " + cc.count() + " components, largest " + cc.largestSize()
+				+ ", " + time + " ms");
+			if (reference == null) {
+				reference = cc.componentIds();
+			}
+			else if (!Arrays.equals(reference, cc.componentIds())) {
+				System.out.println(mode + " disagrees with " + Mode.values()[0]);
+			}
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/* k-core decomposition of an undirected CsrGraph.
+ * Paper: Batagelj, Zaversnik - "An O(m) Algorithm for Cores Decomposition of Networks"
+ *
+ * The core number of v is the largest k such that v belongs to a subgraph in
+ * which every vertex has degree >= k. Peel the graph by always removing a
+ * vertex of smallest remaining degree; its degree at removal time is its
+ * core number.
+ * The vertices are kept bucket sorted by current degree in one int[]
+ * (vert), with pos[v] the index of v and bin[d] the start of bucket d.
+ * Lowering the degree of a neighbor swaps it with the first vertex of its
+ * bucket and moves the bucket start by one, so every step is O(1) and the
+ * whole peeling is O(n + m).
+ * Core numbers are defined on simple graphs: a repeated edge or a self loop
+ * would count twice toward a degree and inflate the cores. Each adjacency
+ * list is therefore copied, sorted and squeezed of repeats and self loops
+ * first, O(m log d) on top of the peeling.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+
+public class CoreDecomposition {
+	private final int[] core;
+	private final int degeneracy;
+
+	public CoreDecomposition(CsrGraph graph) {
+		if (graph.isDirected()) {
+			throw new IllegalArgumentException("Core decomposition expects an undirected graph");
+		}
+		int n = graph.vertexCount();
+		int[] offsets = new int[n + 1];
+		int[] targets = new int[graph.targets.length];
+		int[] degree = new int[n];
+		int maxDegree = 0;
+		int size = 0;
+		for (int v = 0; v < n; v++) {
+			offsets[v] = size;
+			for (int a = graph.offsets[v]; a < graph.offsets[v + 1]; a++) {
+				if (graph.targets[a] != v) {
+					targets[size++] = graph.targets[a];
+				}
+			}
+			Arrays.sort(targets, offsets[v], size);
+			int end = offsets[v];
+			for (int i = offsets[v]; i < size; i++) {
+				if (i == offsets[v] || targets[i] != targets[i - 1]) {
+					targets[end++] = targets[i];
+				}
+			}
+			size = end;
+			degree[v] = size - offsets[v];
+			maxDegree = Math.max(maxDegree, degree[v]);
+		}
+		offsets[n] = size;
+
+		// Counting sort of the vertices by degree.
+		int[] bin = new int[maxDegree + 1];
+		for (int v = 0; v < n; v++) {
+			bin[degree[v]]++;
+		}
+		int start = 0;
+		for (int d = 0; d <= maxDegree; d++) {
+			int count = bin[d];
+			bin[d] = start;
+			start += count;
+		}
+		int[] vert = new int[n];
+		int[] pos = new int[n];
+		for (int v = 0; v < n; v++) {
+			pos[v] = bin[degree[v]]++;
+			vert[pos[v]] = v;
+		}
+		for (int d = maxDegree; d > 0; d--) {
+			bin[d] = bin[d - 1];
+		}
+		bin[0] = 0;
+
+		int highest = 0;
+		for (int i = 0; i < n; i++) {
+			int v = vert[i];
+			highest = Math.max(highest, degree[v]);
+			for (int a = offsets[v]; a < offsets[v + 1]; a++) {
+				int u = targets[a];
+				if (degree[u] > degree[v]) {
+					// Swap u with the first vertex of its bucket, then shrink the bucket.
+					int du = degree[u];
+					int pu = pos[u];
+					int pw = bin[du];
+					int w = vert[pw];
+					if (u != w) {
+						pos[u] = pw;
+						vert[pu] = w;
+						pos[w] = pu;
+						vert[pw] = u;
+					}
+					bin[du]++;
+					degree[u]--;
+				}
+			}
+		}
+		core = degree;
+		degeneracy = highest;
+	}
+
+	public int coreNumber(int v) {
+		return core[v];
+	}
+
+	public int[] coreNumbers() {
+		return core.clone();
+	}
+
+	// Largest k with a non-empty k-core.
+	public int degeneracy() {
+		return degeneracy;
+	}
+
+	// Vertices of the k-core.
+	public int[] kCore(int k) {
+		int count = 0;
+		for (int c : core) {
+			if (c >= k) {
+				count++;
+			}
+		}
+		int[] members = new int[count];
+		int at = 0;
+		for (int v = 0; v < core.length; v++) {
+			if (core[v] >= k) {
+				members[at++] = v;
+			}
+		}
+		return members;
+	}
+
+	// Usage: java graphs.CoreDecomposition [vertices] [edges]
+	public static void main(String[] args) {
+		/* 0, 1, 2, 3 form a clique (3-core), 4 hangs on 3 and 5 on 4. */
+		int[] a = {0, 0, 0, 1, 1, 2, 3, 4};
+		int[] b = {1, 2, 3, 2, 3, 3, 4, 5};
+		CoreDecomposition small = new CoreDecomposition(CsrGraph.fromEdges(6, a, b, null, 8, false));
+		System.out.println("Core numbers: " + Arrays.toString(small.coreNumbers()));
+		System.out.println("3-core: " + Arrays.toString(small.kCore(3)));
+		// The same graph with 4 - 5 repeated and a loop on 5: nothing changes.
+		int[] c = {0, 0, 0, 1, 1, 2, 3, 4, 5, 5};
+		int[] d = {1, 2, 3, 2, 3, 3, 4, 5, 4, 5};
+		CoreDecomposition repeated = new CoreDecomposition(CsrGraph.fromEdges(6, c, d, null, 10, false));
+		System.out.println("With repeated edges: " + Arrays.toString(repeated.coreNumbers()));
+
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int m = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+		Random rm = new Random(13);
+		int[] src = new int[m];
+		int[] dst = new int[m];
+		for (int i = 0; i < m; i++) {
+			src[i] = (int) (n * Math.pow(rm.nextDouble(), 2));
+			dst[i] = rm.nextInt(n);
+		}
+		CsrGraph g = CsrGraph.fromEdges(n, src, dst, null, m, false);
+		long start = System.currentTimeMillis();
+		CoreDecomposition cores = new CoreDecomposition(g);
+		System.out.println("Degeneracy " + cores.degeneracy() + ", " + cores.kCore(cores.degeneracy()).length
+			+ " vertices in the top core, " + (System.currentTimeMillis() - start) + " ms");
+	}
+}
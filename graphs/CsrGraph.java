@@ -0,0 +1,155 @@
+/* Compact graph in compressed sparse row (CSR) form.
+ * Vertices are numbered 0..n-1 and the neighbors of v are stored in
+ * targets[offsets[v]] .. targets[offsets[v+1]-1], so the whole graph is
+ * a few primitive arrays instead of a LinkedList<Integer> per vertex.
+ * An undirected graph stores every edge once in each direction.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class CsrGraph {
+	final int totalNodes;
+	final boolean directed;
+	final int[] offsets;
+	final int[] targets;
+	// Weight of every arc, parallel to targets; null for an unweighted graph.
+	final int[] weights;
+	// Built lazily the first time incoming arcs are asked for.
+	private CsrGraph transpose;
+
+	public CsrGraph(int totalNodes, int[] offsets, int[] targets, int[] weights, boolean directed) {
+		if (offsets.length != totalNodes + 1 || offsets[totalNodes] != targets.length) {
+			throw new IllegalArgumentException("Offsets do not match the target array");
+		}
+		if (weights != null && weights.length != targets.length) {
+			throw new IllegalArgumentException("Weights do not match the target array");
+		}
+		this.totalNodes = totalNodes;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.directed = directed;
+	}
+
+	/* Build a graph from the first edgeCount entries of the src/dst arrays.
+	 * weight may be null. Two passes: count the degrees, then place every
+	 * arc at the next free slot of its source vertex.
+	 */
+	public static CsrGraph fromEdges(int totalNodes, int[] src, int[] dst, int[] weight,
+			int edgeCount, boolean directed) {
+		long arcs = directed ? edgeCount : 2L * edgeCount;
+		if (arcs > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many edges for a CSR graph: " + arcs);
+		}
+		int[] offsets = new int[totalNodes + 1];
+		for (int i = 0; i < edgeCount; i++) {
+			offsets[src[i] + 1]++;
+			if (!directed) {
+				offsets[dst[i] + 1]++;
+			}
+		}
+		for (int v = 0; v < totalNodes; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] targets = new int[(int) arcs];
+		int[] weights = weight == null ? null : new int[(int) arcs];
+		int[] next = Arrays.copyOf(offsets, totalNodes);
+		for (int i = 0; i < edgeCount; i++) {
+			int a = src[i], b = dst[i];
+			int slot = next[a]++;
+			targets[slot] = b;
+			if (weights != null) {
+				weights[slot] = weight[i];
+			}
+			if (!directed) {
+				slot = next[b]++;
+				targets[slot] = a;
+				if (weights != null) {
+					weights[slot] = weight[i];
+				}
+			}
+		}
+		return new CsrGraph(totalNodes, offsets, targets, weights, directed);
+	}
+
+	/* Copy a graphs.Graph adjacency list. Graph numbers its nodes from 1,
+	 * so vertex ids are kept as they are and vertex 0 is left isolated.
+	 * Every list entry becomes one arc, which keeps the direction of the
+	 * non-redundant lists.
+	 */
+	public static CsrGraph fromGraph(Graph g) {
+		int n = g.totalNodes + 1;
+		int[] offsets = new int[n + 1];
+		for (int v = 1; v < n; v++) {
+			offsets[v + 1] = offsets[v] + g.adjacencyList[v].size();
+		}
+		int[] targets = new int[offsets[n]];
+		for (int v = 1; v < n; v++) {
+			int slot = offsets[v];
+			Iterator<Integer> it = g.adjacencyList[v].iterator();
+			while (it.hasNext()) {
+				targets[slot++] = it.next();
+			}
+		}
+		return new CsrGraph(n, offsets, targets, null, true);
+	}
+
+	public int vertexCount() {
+		return totalNodes;
+	}
+
+	// Number of stored arcs; twice the number of edges for an undirected graph.
+	public int arcCount() {
+		return targets.length;
+	}
+
+	public int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	public int firstArc(int v) {
+		return offsets[v];
+	}
+
+	public int endArc(int v) {
+		return offsets[v + 1];
+	}
+
+	public int target(int arc) {
+		return targets[arc];
+	}
+
+	public int weight(int arc) {
+		return weights == null ? 1 : weights[arc];
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	public boolean isWeighted() {
+		return weights != null;
+	}
+
+	/* Graph with every arc reversed, i.e. the incoming arcs of each vertex.
+	 * An undirected graph is its own transpose.
+	 */
+	public CsrGraph transpose() {
+		if (!directed) {
+			return this;
+		}
+		if (transpose == null) {
+			int[] src = new int[targets.length];
+			for (int v = 0; v < totalNodes; v++) {
+				for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+					src[i] = v;
+				}
+			}
+			transpose = fromEdges(totalNodes, targets, src, weights, targets.length, true);
+			transpose.transpose = this;
+		}
+		return transpose;
+	}
+}
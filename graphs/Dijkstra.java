@@ -0,0 +1,544 @@
+/* Single source shortest paths over a weighted CsrGraph (Dijkstra).
+ * Weights are non-negative ints, distances are longs and INFINITY marks
+ * an unreachable vertex. The priority queue is pluggable:
+ *  - BINARY_HEAP:  lazy binary heap, a relaxed vertex is simply pushed again
+ *                  and stale entries are skipped when popped.
+ *  - INDEXED_HEAP: binary heap with a position index and real decrease-key,
+ *                  never holds more than n entries.
+ *  - RADIX_HEAP:   monotone radix heap (Ahuja, Mehlhorn, Orlin, Tarjan),
+ *                  an entry moves down at most 64 buckets during its lifetime.
+ * Point to point queries stop as soon as the target is settled, and can
+ * also run as a bidirectional search over the graph and its transpose.
+ * Distance arrays are kept between queries and only the touched entries
+ * are reset, so a short query does not pay O(n).
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+
+public class Dijkstra {
+	public static final long INFINITY = Long.MAX_VALUE;
+
+	public enum QueueType { BINARY_HEAP, INDEXED_HEAP, RADIX_HEAP }
+
+	private final CsrGraph graph;
+	private final QueueType type;
+	private final Search forward;
+	// Created on the first bidirectional query.
+	private Search backward;
+	// What path() can answer: every vertex after distances(), only the
+	// target after distance(), nothing before a query or after a
+	// bidirectional one.
+	private static final int ALL = -1, NONE = -2;
+	private int pathTarget = NONE;
+
+	public Dijkstra(CsrGraph graph, QueueType type) {
+		if (graph.weights != null) {
+			for (int w : graph.weights) {
+				if (w < 0) {
+					throw new IllegalArgumentException("Dijkstra needs non-negative weights, found " + w);
+				}
+			}
+		}
+		this.graph = graph;
+		this.type = type;
+		this.forward = new Search(graph, type);
+	}
+
+	// Distance from source to every vertex.
+	public long[] distances(int source) {
+		forward.run(source, -1);
+		pathTarget = ALL;
+		return Arrays.copyOf(forward.dist, graph.vertexCount());
+	}
+
+	// Distance from source to target, stopping once target is settled.
+	public long distance(int source, int target) {
+		forward.run(source, target);
+		pathTarget = target;
+		return forward.dist[target];
+	}
+
+	// Vertices on the shortest path to target found by the last distances()
+	// or distance(source, target) call, or null when target was not reached.
+	// A point to point query stops early, so only its own target has a path.
+	public int[] path(int target) {
+		if (pathTarget == NONE || (pathTarget != ALL && pathTarget != target)) {
+			throw new IllegalStateException("No shortest path to " + target
+				+ " known; call distances(source) or distance(source, " + target + ") first");
+		}
+		if (forward.dist[target] == INFINITY) {
+			return null;
+		}
+		int length = 0;
+		for (int v = target; v != -1; v = forward.parent[v]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target; v != -1; v = forward.parent[v]) {
+			path[--length] = v;
+		}
+		return path;
+	}
+
+	/* Grow one search from the source and one from the target over the
+	 * reversed arcs, always advancing the side with the smaller key.
+	 * best is the shortest source-target path seen through any scanned arc;
+	 * once the two queue minimums add up to at least best, nothing shorter
+	 * can be found.
+	 */
+	public long bidirectionalDistance(int source, int target) {
+		if (backward == null) {
+			backward = new Search(graph.transpose(), type);
+		}
+		// The forward search is reset and only partly grown.
+		pathTarget = NONE;
+		if (source == target) {
+			return 0;
+		}
+		forward.start(source);
+		backward.start(target);
+		long best = INFINITY;
+		while (!forward.queue.isEmpty() && !backward.queue.isEmpty()) {
+			long f = forward.queue.minKey();
+			long b = backward.queue.minKey();
+			if (best != INFINITY && f + b >= best) {
+				break;
+			}
+			Search side = f <= b ? forward : backward;
+			Search other = side == forward ? backward : forward;
+			best = side.step(other, best);
+		}
+		return best;
+	}
+
+	// One direction of a search plus its queue and reusable state.
+	private static final class Search {
+		final CsrGraph graph;
+		final long[] dist;
+		final int[] parent;
+		final DistanceQueue queue;
+		// Vertices whose dist is not INFINITY, to reset them cheaply.
+		int[] touched;
+		int touchedCount;
+
+		Search(CsrGraph graph, QueueType type) {
+			int n = graph.vertexCount();
+			this.graph = graph;
+			dist = new long[n];
+			parent = new int[n];
+			Arrays.fill(dist, INFINITY);
+			touched = new int[64];
+			switch (type) {
+				case INDEXED_HEAP:
+					queue = new IndexedHeap(n);
+					break;
+				case RADIX_HEAP:
+					queue = new RadixHeap();
+					break;
+				default:
+					queue = new LazyHeap();
+			}
+		}
+
+		void start(int source) {
+			for (int i = 0; i < touchedCount; i++) {
+				dist[touched[i]] = INFINITY;
+			}
+			touchedCount = 0;
+			queue.clear();
+			update(source, 0, -1);
+		}
+
+		void update(int v, long d, int from) {
+			if (dist[v] == INFINITY) {
+				if (touchedCount == touched.length) {
+					touched = Arrays.copyOf(touched, touchedCount * 2);
+				}
+				touched[touchedCount++] = v;
+			}
+			dist[v] = d;
+			parent[v] = from;
+			queue.push(v, d);
+		}
+
+		void run(int source, int target) {
+			start(source);
+			while (!queue.isEmpty()) {
+				long d = queue.minKey();
+				int u = queue.pop();
+				if (d > dist[u]) {
+					continue;
+				}
+				if (u == target) {
+					return;
+				}
+				relax(u, d);
+			}
+		}
+
+		void relax(int u, long d) {
+			int[] offsets = graph.offsets;
+			int[] targets = graph.targets;
+			int[] weights = graph.weights;
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int v = targets[i];
+				long nd = d + (weights == null ? 1 : weights[i]);
+				if (nd < dist[v]) {
+					update(v, nd, u);
+				}
+			}
+		}
+
+		// Settle one vertex of a bidirectional search and return the new best.
+		long step(Search other, long best) {
+			long d = queue.minKey();
+			int u = queue.pop();
+			if (d > dist[u]) {
+				return best;
+			}
+			int[] offsets = graph.offsets;
+			int[] targets = graph.targets;
+			int[] weights = graph.weights;
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int v = targets[i];
+				long nd = d + (weights == null ? 1 : weights[i]);
+				if (nd < dist[v]) {
+					update(v, nd, u);
+				}
+				if (other.dist[v] != INFINITY && nd + other.dist[v] < best) {
+					best = nd + other.dist[v];
+				}
+			}
+			return best;
+		}
+	}
+
+	// Min priority queue of (vertex, distance) pairs.
+	interface DistanceQueue {
+		void push(int v, long key);
+		boolean isEmpty();
+		// Key of the entry pop() will return next.
+		long minKey();
+		int pop();
+		void clear();
+	}
+
+	// Binary heap allowing duplicates of a vertex.
+	static final class LazyHeap implements DistanceQueue {
+		private long[] keys = new long[64];
+		private int[] vertices = new int[64];
+		private int size;
+
+		public void push(int v, long key) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				vertices = Arrays.copyOf(vertices, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int up = (i - 1) >>> 1;
+				if (keys[up] <= key) {
+					break;
+				}
+				keys[i] = keys[up];
+				vertices[i] = vertices[up];
+				i = up;
+			}
+			keys[i] = key;
+			vertices[i] = v;
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		public long minKey() {
+			return keys[0];
+		}
+
+		public int pop() {
+			int top = vertices[0];
+			size--;
+			long key = keys[size];
+			int v = vertices[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && keys[child + 1] < keys[child]) {
+					child++;
+				}
+				if (keys[child] >= key) {
+					break;
+				}
+				keys[i] = keys[child];
+				vertices[i] = vertices[child];
+				i = child;
+			}
+			keys[i] = key;
+			vertices[i] = v;
+			return top;
+		}
+
+		public void clear() {
+			size = 0;
+		}
+	}
+
+	// Binary heap with at most one entry per vertex and decrease-key.
+	static final class IndexedHeap implements DistanceQueue {
+		private final int[] heap;
+		// Index of a vertex in heap, -1 when it is not queued.
+		private final int[] position;
+		private final long[] keys;
+		private int size;
+
+		IndexedHeap(int n) {
+			heap = new int[n];
+			position = new int[n];
+			keys = new long[n];
+			Arrays.fill(position, -1);
+		}
+
+		public void push(int v, long key) {
+			keys[v] = key;
+			if (position[v] == -1) {
+				position[v] = size;
+				heap[size++] = v;
+			}
+			siftUp(position[v]);
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		public long minKey() {
+			return keys[heap[0]];
+		}
+
+		public int pop() {
+			int top = heap[0];
+			position[top] = -1;
+			size--;
+			if (size > 0) {
+				heap[0] = heap[size];
+				position[heap[0]] = 0;
+				siftDown(0);
+			}
+			return top;
+		}
+
+		public void clear() {
+			for (int i = 0; i < size; i++) {
+				position[heap[i]] = -1;
+			}
+			size = 0;
+		}
+
+		private void siftUp(int i) {
+			int v = heap[i];
+			long key = keys[v];
+			while (i > 0) {
+				int up = (i - 1) >>> 1;
+				if (keys[heap[up]] <= key) {
+					break;
+				}
+				heap[i] = heap[up];
+				position[heap[i]] = i;
+				i = up;
+			}
+			heap[i] = v;
+			position[v] = i;
+		}
+
+		private void siftDown(int i) {
+			int v = heap[i];
+			long key = keys[v];
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+					child++;
+				}
+				if (keys[heap[child]] >= key) {
+					break;
+				}
+				heap[i] = heap[child];
+				position[heap[i]] = i;
+				i = child;
+			}
+			heap[i] = v;
+			position[v] = i;
+		}
+	}
+
+	/* Monotone radix heap: keys pushed are never below the last key popped.
+	 * Bucket 0 holds keys equal to last, bucket i > 0 holds keys whose
+	 * highest bit differing from last is bit i-1. When bucket 0 runs dry the
+	 * smallest key of the first non-empty bucket becomes last and that bucket
+	 * is spread over the lower buckets.
+	 */
+	static final class RadixHeap implements DistanceQueue {
+		private final long[][] keys = new long[65][];
+		private final int[][] vertices = new int[65][];
+		private final int[] sizes = new int[65];
+		private long last;
+		private int size;
+
+		RadixHeap() {
+			for (int b = 0; b < 65; b++) {
+				keys[b] = new long[16];
+				vertices[b] = new int[16];
+			}
+		}
+
+		private int bucket(long key) {
+			return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+		}
+
+		private void add(int b, int v, long key) {
+			int s = sizes[b];
+			if (s == keys[b].length) {
+				keys[b] = Arrays.copyOf(keys[b], s * 2);
+				vertices[b] = Arrays.copyOf(vertices[b], s * 2);
+			}
+			keys[b][s] = key;
+			vertices[b][s] = v;
+			sizes[b] = s + 1;
+		}
+
+		public void push(int v, long key) {
+			if (key < last) {
+				throw new IllegalArgumentException("Radix heap keys must not decrease");
+			}
+			add(bucket(key), v, key);
+			size++;
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		// Make sure bucket 0 holds the minimum.
+		private void refill() {
+			if (sizes[0] > 0) {
+				return;
+			}
+			int b = 1;
+			while (sizes[b] == 0) {
+				b++;
+			}
+			long[] k = keys[b];
+			int[] v = vertices[b];
+			int s = sizes[b];
+			long min = k[0];
+			for (int i = 1; i < s; i++) {
+				if (k[i] < min) {
+					min = k[i];
+				}
+			}
+			last = min;
+			sizes[b] = 0;
+			for (int i = 0; i < s; i++) {
+				add(bucket(k[i]), v[i], k[i]);
+			}
+		}
+
+		public long minKey() {
+			refill();
+			return last;
+		}
+
+		public int pop() {
+			refill();
+			size--;
+			return vertices[0][--sizes[0]];
+		}
+
+		public void clear() {
+			Arrays.fill(sizes, 0);
+			size = 0;
+			last = 0;
+		}
+	}
+
+	// Random directed graph with weights in [1, maxWeight].
+	static CsrGraph randomGraph(int n, int degree, int maxWeight, long seed) {
+		Random rm = new Random(seed);
+		int m = n * degree;
+		int[] src = new int[m];
+		int[] dst = new int[m];
+		int[] weight = new int[m];
+		for (int i = 0; i < m; i++) {
+			src[i] = rm.nextInt(n);
+			dst[i] = rm.nextInt(n);
+			weight[i] = 1 + rm.nextInt(maxWeight);
+		}
+		return CsrGraph.fromEdges(n, src, dst, weight, m, true);
+	}
+
+	// Usage: java graphs.Dijkstra [vertices] [out degree] [queries]
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int queries = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		CsrGraph g = randomGraph(n, degree, 1000, 7);
+		Random rm = new Random(11);
+		int[] from = new int[queries];
+		int[] to = new int[queries];
+		for (int q = 0; q < queries; q++) {
+			from[q] = rm.nextInt(n);
+			to[q] = rm.nextInt(n);
+		}
+
+		long[] reference = null;
+		System.out.println("queue,all distances ms,point-to-point ms,bidirectional ms");
+		for (QueueType type : QueueType.values()) {
+			Dijkstra dijkstra = new Dijkstra(g, type);
+			long start = System.currentTimeMillis();
+			long[] dist = dijkstra.distances(0);
+			long full = System.currentTimeMillis() - start;
+			if (reference == null) {
+				reference = dist;
+			}
+			else if (!Arrays.equals(reference, dist)) {
+				System.out.println(type + " disagrees with " + QueueType.values()[0]);
+			}
+
+			long[] single = new long[queries];
+			start = System.currentTimeMillis();
+			for (int q = 0; q < queries; q++) {
+				single[q] = dijkstra.distance(from[q], to[q]);
+			}
+			long pointToPoint = System.currentTimeMillis() - start;
+			start = System.currentTimeMillis();
+			for (int q = 0; q < queries; q++) {
+				if (dijkstra.bidirectionalDistance(from[q], to[q]) != single[q]) {
+					System.out.println(type + " bidirectional query " + from[q] + " -> " + to[q] + " disagrees");
+				}
+			}
+			long bidirectional = System.currentTimeMillis() - start;
+			System.out.println(type + "," + full + "," + pointToPoint + "," + bidirectional);
+		}
+
+		Dijkstra paths = new Dijkstra(g, QueueType.BINARY_HEAP);
+		paths.distance(from[0], to[0]);
+		int[] path = paths.path(to[0]);
+		System.out.println("Path " + from[0] + " -> " + to[0] + ": "
+			+ (path == null ? "none" : path.length + " vertices"));
+		paths.bidirectionalDistance(from[0], to[0]);
+		try {
+			paths.path(to[0]);
+		}
+		catch (IllegalStateException e) {
+			System.out.println("path() after a bidirectional query: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/* Graph under a stream of edge inserts and deletes.
+ * Every vertex keeps its neighbors in its own open addressing int set
+ * (linear probing, power of two table, -1 marks a free slot), so adding,
+ * finding and removing an edge are O(1) expected instead of a
+ * LinkedList.remove(Object) walk over boxed Integers.
+ * Removal uses backward shift deletion: the entries after the freed slot
+ * are moved back, so no tombstones pile up under heavy churn.
+ * Tables grow at 1/2 load and shrink below 1/8 load.
+ *
+ * For read-heavy phases toCsr() compacts the current edges into a CsrGraph
+ * with sorted neighbor lists.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+public class DynamicGraph {
+	private static final int FREE = -1;
+	private static final int MIN_CAPACITY = 4;
+
+	private final boolean directed;
+	private int[][] tables;
+	private int[] sizes;
+	private int totalNodes;
+	private long edgeCount;
+
+	public DynamicGraph(int totalNodes, boolean directed) {
+		this.directed = directed;
+		this.totalNodes = totalNodes;
+		tables = new int[totalNodes][];
+		sizes = new int[totalNodes];
+	}
+
+	public int vertexCount() {
+		return totalNodes;
+	}
+
+	public long edgeCount() {
+		return edgeCount;
+	}
+
+	public int degree(int v) {
+		return v < totalNodes ? sizes[v] : 0;
+	}
+
+	// Make room for vertices up to v.
+	private void ensureVertex(int v) {
+		if (v >= tables.length) {
+			int capacity = Math.max(v + 1, tables.length + (tables.length >> 1));
+			tables = Arrays.copyOf(tables, capacity);
+			sizes = Arrays.copyOf(sizes, capacity);
+		}
+		if (v >= totalNodes) {
+			totalNodes = v + 1;
+		}
+	}
+
+	private static int slot(int v, int mask) {
+		return (v * 0x9E3779B9 >>> 7) & mask;
+	}
+
+	// Returns false when the edge was already present.
+	public boolean addEdge(int u, int v) {
+		ensureVertex(Math.max(u, v));
+		if (!insert(u, v)) {
+			return false;
+		}
+		if (!directed && u != v) {
+			insert(v, u);
+		}
+		edgeCount++;
+		return true;
+	}
+
+	// Returns false when there was no such edge.
+	public boolean removeEdge(int u, int v) {
+		if (u >= totalNodes || v >= totalNodes || !delete(u, v)) {
+			return false;
+		}
+		if (!directed && u != v) {
+			delete(v, u);
+		}
+		edgeCount--;
+		return true;
+	}
+
+	public boolean hasEdge(int u, int v) {
+		if (u >= totalNodes || tables[u] == null) {
+			return false;
+		}
+		int[] table = tables[u];
+		int mask = table.length - 1;
+		for (int i = slot(v, mask); table[i] != FREE; i = (i + 1) & mask) {
+			if (table[i] == v) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void forEachNeighbor(int u, IntConsumer action) {
+		int[] table = u < totalNodes ? tables[u] : null;
+		if (table == null) {
+			return;
+		}
+		for (int w : table) {
+			if (w != FREE) {
+				action.accept(w);
+			}
+		}
+	}
+
+	private boolean insert(int u, int v) {
+		int[] table = tables[u];
+		if (table == null) {
+			table = newTable(MIN_CAPACITY);
+			tables[u] = table;
+		}
+		else if (2 * (sizes[u] + 1) > table.length) {
+			table = rehash(u, table.length * 2);
+		}
+		int mask = table.length - 1;
+		int i = slot(v, mask);
+		while (table[i] != FREE) {
+			if (table[i] == v) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		table[i] = v;
+		sizes[u]++;
+		return true;
+	}
+
+	private boolean delete(int u, int v) {
+		int[] table = tables[u];
+		if (table == null) {
+			return false;
+		}
+		int mask = table.length - 1;
+		int i = slot(v, mask);
+		while (table[i] != v) {
+			if (table[i] == FREE) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		// Move back every following entry whose home slot is not between the hole and itself.
+		int hole = i;
+		for (int j = (hole + 1) & mask; table[j] != FREE; j = (j + 1) & mask) {
+			int home = slot(table[j], mask);
+			if (((j - home) & mask) >= ((j - hole) & mask)) {
+				table[hole] = table[j];
+				hole = j;
+			}
+		}
+		table[hole] = FREE;
+		sizes[u]--;
+		if (sizes[u] == 0) {
+			tables[u] = null;
+		}
+		else if (table.length > MIN_CAPACITY && 8 * sizes[u] < table.length) {
+			rehash(u, table.length / 2);
+		}
+		return true;
+	}
+
+	private static int[] newTable(int capacity) {
+		int[] table = new int[capacity];
+		Arrays.fill(table, FREE);
+		return table;
+	}
+
+	private int[] rehash(int u, int capacity) {
+		int[] old = tables[u];
+		int[] table = newTable(capacity);
+		int mask = capacity - 1;
+		for (int w : old) {
+			if (w != FREE) {
+				int i = slot(w, mask);
+				while (table[i] != FREE) {
+					i = (i + 1) & mask;
+				}
+				table[i] = w;
+			}
+		}
+		tables[u] = table;
+		return table;
+	}
+
+	// Snapshot of the current edges with sorted neighbor lists.
+	public CsrGraph toCsr() {
+		int[] offsets = new int[totalNodes + 1];
+		for (int v = 0; v < totalNodes; v++) {
+			offsets[v + 1] = offsets[v] + sizes[v];
+		}
+		int[] targets = new int[offsets[totalNodes]];
+		for (int v = 0; v < totalNodes; v++) {
+			int[] table = tables[v];
+			if (table == null) {
+				continue;
+			}
+			int at = offsets[v];
+			for (int w : table) {
+				if (w != FREE) {
+					targets[at++] = w;
+				}
+			}
+			Arrays.sort(targets, offsets[v], at);
+		}
+		return new CsrGraph(totalNodes, offsets, targets, null, directed);
+	}
+
+	// Usage: java graphs.DynamicGraph [vertices] [operations]
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+		DynamicGraph g = new DynamicGraph(n, false);
+		Random rm = new Random(3);
+		// Inserted edges, so deletes can pick one that exists.
+		int[] from = new int[operations];
+		int[] to = new int[operations];
+		int live = 0, inserted = 0, removed = 0;
+		long start = System.currentTimeMillis();
+		for (int op = 0; op < operations; op++) {
+			// Two inserts per delete.
+			if (op % 3 != 2 || live == 0) {
+				int u = rm.nextInt(n);
+				int v = rm.nextInt(n);
+				if (g.addEdge(u, v)) {
+					from[live] = u;
+					to[live++] = v;
+					inserted++;
+				}
+			}
+			else {
+				int pick = rm.nextInt(live);
+				if (g.removeEdge(from[pick], to[pick])) {
+					removed++;
+				}
+				live--;
+				from[pick] = from[live];
+				to[pick] = to[live];
+			}
+		}
+		long streamed = System.currentTimeMillis();
+		CsrGraph csr = g.toCsr();
+		long compacted = System.currentTimeMillis();
+		System.out.println(inserted + " inserts, " + removed + " deletes in " + (streamed - start)
+			+ " ms, " + g.edgeCount() + " edges left");
+		System.out.println("Compacted to CSR with " + csr.arcCount() + " arcs in " + (compacted - streamed) + " ms");
+	}
+}
@@ -0,0 +1,312 @@
+/* Fast reader for text edge lists: one edge per line, "<src> <dst>" or
+ * "<src> <dst> <weight>", separated by spaces or tabs. Lines starting with
+ * '#' or '%' are comments.
+ *
+ * Instead of Scanner / String.split / Integer.parseInt the file is mapped
+ * with FileChannel.map and the digits are turned into ints straight from the
+ * mapped bytes, so no String is ever created. Large files are cut into
+ * chunks at line boundaries and the chunks are parsed in parallel, each into
+ * its own primitive arrays, which are concatenated at the end.
+ *
+ * The result can be saved as a binary cache (magic, version, counts and the
+ * raw int columns) which loads with a few bulk copies instead of parsing.
+ */
+
+package graphs;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class EdgeListReader {
+	private static final int MAGIC = 0x45444745; // "EDGE"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 16;
+	// Mapped region per chunk; well below the 2 GB limit of a MappedByteBuffer.
+	private static final long MAX_CHUNK = 1L << 28;
+	private static final long MIN_CHUNK = 1L << 20;
+
+	// Parsed edges as parallel primitive columns.
+	public static final class EdgeList {
+		public final int[] src;
+		public final int[] dst;
+		// null when the file has no weight column.
+		public final int[] weight;
+		public final int count;
+		public final int maxVertex;
+
+		EdgeList(int[] src, int[] dst, int[] weight, int count) {
+			this.src = src;
+			this.dst = dst;
+			this.weight = weight;
+			this.count = count;
+			int max = -1;
+			for (int i = 0; i < count; i++) {
+				max = Math.max(max, Math.max(src[i], dst[i]));
+			}
+			this.maxVertex = max;
+		}
+
+		public CsrGraph toGraph(boolean directed) {
+			return CsrGraph.fromEdges(maxVertex + 1, src, dst, weight, count, directed);
+		}
+	}
+
+	// Growable columns filled by one chunk.
+	private static final class Columns {
+		int[] src = new int[1024];
+		int[] dst = new int[1024];
+		int[] weight = new int[1024];
+		int count;
+		boolean weighted;
+
+		void add(int a, int b, int w) {
+			if (count == src.length) {
+				int size = count * 2;
+				src = Arrays.copyOf(src, size);
+				dst = Arrays.copyOf(dst, size);
+				weight = Arrays.copyOf(weight, size);
+			}
+			src[count] = a;
+			dst[count] = b;
+			weight[count] = w;
+			count++;
+		}
+	}
+
+	public static EdgeList read(String filename) throws IOException {
+		return read(filename, Runtime.getRuntime().availableProcessors());
+	}
+
+	public static EdgeList read(String filename, int threads) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+				FileChannel channel = file.getChannel()) {
+			long size = channel.size();
+			long[] bounds = chunkBounds(channel, size, threads);
+			int parts = bounds.length - 1;
+			Columns[] columns = new Columns[parts];
+			IOException[] failure = new IOException[1];
+			IntStream.range(0, parts).parallel().forEach(p -> {
+				try {
+					long from = bounds[p];
+					long length = bounds[p + 1] - from;
+					columns[p] = parse(channel.map(FileChannel.MapMode.READ_ONLY, from, length), (int) length);
+				}
+				catch (IOException e) {
+					failure[0] = e;
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			return concat(columns);
+		}
+	}
+
+	/* Split [0, size) into pieces of at most MAX_CHUNK bytes, at least one
+	 * per thread for big files, and move every split point forward to just
+	 * after the next newline.
+	 */
+	private static long[] chunkBounds(FileChannel channel, long size, int threads) throws IOException {
+		long parts = Math.max((size + MAX_CHUNK - 1) / MAX_CHUNK, Math.min(threads, size / MIN_CHUNK));
+		parts = Math.max(parts, 1);
+		long[] bounds = new long[(int) parts + 1];
+		ByteBuffer window = ByteBuffer.allocate(4096);
+		for (int p = 1; p < parts; p++) {
+			long at = Math.max(bounds[p - 1], size * p / parts);
+			bounds[p] = nextLineStart(channel, at, size, window);
+		}
+		bounds[(int) parts] = size;
+		return bounds;
+	}
+
+	private static long nextLineStart(FileChannel channel, long at, long size, ByteBuffer window) throws IOException {
+		while (at < size) {
+			window.clear();
+			int read = channel.read(window, at);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (window.get(i) == '\n') {
+					return at + i + 1;
+				}
+			}
+			at += read;
+		}
+		return size;
+	}
+
+	private static Columns parse(MappedByteBuffer buffer, int length) {
+		Columns out = new Columns();
+		int[] values = new int[3];
+		int i = 0;
+		while (i < length) {
+			byte c = buffer.get(i);
+			if (c == '#' || c == '%') {
+				while (i < length && buffer.get(i) != '\n') {
+					i++;
+				}
+				continue;
+			}
+			// Read up to three integers of the current line.
+			int found = 0;
+			while (i < length && (c = buffer.get(i)) != '\n') {
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					boolean negative = c == '-';
+					if (negative) {
+						i++;
+					}
+					int value = 0;
+					while (i < length && (c = buffer.get(i)) >= '0' && c <= '9') {
+						value = value * 10 + (c - '0');
+						i++;
+					}
+					if (found < 3) {
+						values[found] = negative ? -value : value;
+					}
+					found++;
+				}
+				else {
+					i++;
+				}
+			}
+			i++;
+			if (found >= 2) {
+				out.add(values[0], values[1], found >= 3 ? values[2] : 1);
+				out.weighted |= found >= 3;
+			}
+		}
+		return out;
+	}
+
+	private static EdgeList concat(Columns[] columns) {
+		int total = 0;
+		boolean weighted = false;
+		for (Columns c : columns) {
+			total += c.count;
+			weighted |= c.weighted;
+		}
+		int[] src = new int[total];
+		int[] dst = new int[total];
+		int[] weight = weighted ? new int[total] : null;
+		int at = 0;
+		for (Columns c : columns) {
+			System.arraycopy(c.src, 0, src, at, c.count);
+			System.arraycopy(c.dst, 0, dst, at, c.count);
+			if (weighted) {
+				System.arraycopy(c.weight, 0, weight, at, c.count);
+			}
+			at += c.count;
+		}
+		return new EdgeList(src, dst, weight, total);
+	}
+
+	/* Binary cache layout (little endian):
+	 * int magic, int version, int edge count, int 1 if weighted else 0,
+	 * then the src column, the dst column and optionally the weight column.
+	 */
+	public static void writeCache(EdgeList edges, String filename) throws IOException {
+		int columns = edges.weight == null ? 2 : 3;
+		long bytes = HEADER_BYTES + 4L * columns * edges.count;
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw");
+				FileChannel channel = file.getChannel()) {
+			file.setLength(0);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(edges.count).putInt(columns == 3 ? 1 : 0);
+			header.flip();
+			channel.write(header, 0);
+			long at = HEADER_BYTES;
+			at = writeColumn(channel, at, edges.src, edges.count);
+			at = writeColumn(channel, at, edges.dst, edges.count);
+			if (edges.weight != null) {
+				writeColumn(channel, at, edges.weight, edges.count);
+			}
+			file.setLength(bytes);
+		}
+	}
+
+	private static long writeColumn(FileChannel channel, long at, int[] column, int count) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		IntBuffer ints = buffer.asIntBuffer();
+		for (int from = 0; from < count; from += ints.capacity()) {
+			int n = Math.min(ints.capacity(), count - from);
+			ints.clear();
+			ints.put(column, from, n);
+			buffer.clear().limit(n * 4);
+			while (buffer.hasRemaining()) {
+				at += channel.write(buffer, at);
+			}
+		}
+		return at;
+	}
+
+	public static EdgeList readCache(String filename) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+				FileChannel channel = file.getChannel()) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			channel.read(header, 0);
+			header.flip();
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException(filename + " is not an edge list cache");
+			}
+			int count = header.getInt();
+			boolean weighted = header.getInt() == 1;
+			long at = HEADER_BYTES;
+			int[] src = readColumn(channel, at, count);
+			at += 4L * count;
+			int[] dst = readColumn(channel, at, count);
+			at += 4L * count;
+			int[] weight = weighted ? readColumn(channel, at, count) : null;
+			return new EdgeList(src, dst, weight, count);
+		}
+	}
+
+	private static int[] readColumn(FileChannel channel, long at, int count) throws IOException {
+		int[] column = new int[count];
+		int perMap = (int) (MAX_CHUNK / 4);
+		for (int from = 0; from < count; from += perMap) {
+			int n = Math.min(perMap, count - from);
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, at + 4L * from, 4L * n);
+			mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(column, from, n);
+		}
+		return column;
+	}
+
+	// Read filename through its "<filename>.bin" cache, creating or refreshing
+	// the cache when it is missing or older than the text file.
+	public static EdgeList load(String filename) throws IOException {
+		File text = new File(filename);
+		File cache = new File(filename + ".bin");
+		if (cache.exists() && cache.lastModified() >= text.lastModified()) {
+			return readCache(cache.getPath());
+		}
+		EdgeList edges = read(filename);
+		writeCache(edges, cache.getPath());
+		return edges;
+	}
+
+	// Usage: java graphs.EdgeListReader <edge list file>
+	public static void main(String[] args) throws IOException {
+		String filename = args.length > 0 ? args[0] : "edgelist";
+		long start = System.currentTimeMillis();
+		EdgeList edges = read(filename);
+		long parsed = System.currentTimeMillis();
+		writeCache(edges, filename + ".bin");
+		long written = System.currentTimeMillis();
+		EdgeList cached = readCache(filename + ".bin");
+		long loaded = System.currentTimeMillis();
+		System.out.println(edges.count + " edges, largest vertex " + edges.maxVertex
+			+ (edges.weight == null ? ", unweighted" : ", weighted"));
+		System.out.println("parse: " + (parsed - start) + " ms, write cache: " + (written - parsed)
+			+ " ms, read cache: " + (loaded - written) + " ms");
+		System.out.println("cache matches: " + (Arrays.equals(edges.src, cached.src)
+			&& Arrays.equals(edges.dst, cached.dst) && Arrays.equals(edges.weight, cached.weight)));
+	}
+}
@@ -39,7 +39,33 @@ public class Graph {
 		}
 	}
 
+	// Arc from one to two only, for directed graphs.
+	void addDirectedEdge(int one, int two) {
+		adjacencyList[one].add(two);
+	}
+
+	/* Remove an undirected edge from whichever lists addEdge put it in.
+	 * On a graph built with addDirectedEdge use removeDirectedEdge, or an
+	 * arc two -> one would go as well.
+	 * This walks the lists; DynamicGraph does it in O(1) for edge streams.
+	 */
 	void removeEdge(int one, int two) {
+		adjacencyList[one].remove(Integer.valueOf(two));
+		adjacencyList[two].remove(Integer.valueOf(one));
+	}
+
+	// Remove the arc from one to two only.
+	boolean removeDirectedEdge(int one, int two) {
+		return adjacencyList[one].remove(Integer.valueOf(two));
+	}
 
+	public static void main(String[] args) {
+		// 2-cycle 1 -> 2 -> 1: dropping 1 -> 2 must leave 2 -> 1 alone.
+		Graph g = new Graph(2);
+		g.addDirectedEdge(1, 2);
+		g.addDirectedEdge(2, 1);
+		g.removeDirectedEdge(1, 2);
+		System.out.println("1 -> " + g.adjacencyList[1] + ", 2 -> " + g.adjacencyList[2]
+			+ (g.adjacencyList[1].isEmpty() && g.adjacencyList[2].contains(1) ? ", arc 2 -> 1 kept" : ", WRONG"));
 	}
-}
\ No newline at end of file
+}
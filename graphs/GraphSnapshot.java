@@ -0,0 +1,364 @@
+/* Binary on-disk graph, opened with FileChannel.map instead of parsed.
+ *
+ * Layout, little-endian:
+ *   header   32 bytes: magic "CSRG", version, flags (1 directed, 2 weighted),
+ *            vertex count (int), arc count (long), 8 reserved bytes
+ *   offsets  (vertices + 1) longs, the CSR row starts
+ *   targets  arc count ints
+ *   weights  arc count ints, only when weighted
+ *
+ * Anything that can become a CsrGraph can be written: CsrGraph itself,
+ * graphs.Graph, DynamicGraph, or EdgeListReader.EdgeList via toGraph().
+ * Edge lists too big for a CsrGraph (2^31 arcs; an undirected graph has two
+ * per edge) are written from one or more EdgeLists by a counting sort whose
+ * second pass stores every arc straight into the mapped output file, so
+ * only the long offsets are held in memory besides the edges themselves.
+ * open() maps the file read-only, so nothing is copied up front, pages are
+ * loaded on first touch and shared by every process reading the same file.
+ * A MappedByteBuffer stops at 2 GB, so the file is mapped as a list of 1 GB
+ * segments. Every section starts at a multiple of 8 bytes and the segment
+ * size is a multiple of 8 too, so no long or int straddles two segments and
+ * an element is found with a shift and a mask. Arc indices are longs
+ * throughout, the reader included.
+ */
+
+package graphs;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+public class GraphSnapshot {
+	private static final int MAGIC = 0x47525343; // "CSRG"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 32;
+	private static final int DIRECTED = 1;
+	private static final int WEIGHTED = 2;
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	private final MappedByteBuffer[] segments;
+	private final int totalNodes;
+	private final long arcs;
+	private final boolean directed;
+	private final boolean weighted;
+	// Byte positions of the sections.
+	private final long targetsAt;
+	private final long weightsAt;
+
+	private GraphSnapshot(MappedByteBuffer[] segments, int totalNodes, long arcs, int flags) {
+		this.segments = segments;
+		this.totalNodes = totalNodes;
+		this.arcs = arcs;
+		this.directed = (flags & DIRECTED) != 0;
+		this.weighted = (flags & WEIGHTED) != 0;
+		targetsAt = HEADER_BYTES + 8L * (totalNodes + 1);
+		// Padded so that the weights start at a multiple of 8 as well.
+		weightsAt = targetsAt + ((4L * arcs + 7) & ~7L);
+	}
+
+	public static void write(CsrGraph graph, String filename) throws IOException {
+		int n = graph.vertexCount();
+		int m = graph.arcCount();
+		int flags = (graph.isDirected() ? DIRECTED : 0) | (graph.isWeighted() ? WEIGHTED : 0);
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw");
+				FileChannel channel = file.getChannel()) {
+			file.setLength(0);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(n).putLong(m).putLong(0);
+			header.flip();
+			channel.write(header, 0);
+			long at = writeOffsets(channel, HEADER_BYTES, graph.offsets, n + 1);
+			at = writeInts(channel, at, graph.targets, m);
+			at = (at + 7) & ~7L;
+			if (graph.weights != null) {
+				at = writeInts(channel, at, graph.weights, m);
+			}
+			file.setLength(at);
+		}
+	}
+
+	/* Write the edges of all chunks as one graph on vertices 0 .. totalNodes-1,
+	 * in chunk order; the arcs of a vertex keep the order of its edges, as in
+	 * CsrGraph.fromEdges. Either every chunk has weights or none.
+	 */
+	public static void write(int totalNodes, boolean directed, String filename, EdgeListReader.EdgeList... chunks)
+			throws IOException {
+		int weightedChunks = 0;
+		for (EdgeListReader.EdgeList chunk : chunks) {
+			if (chunk.weight != null) {
+				weightedChunks++;
+			}
+		}
+		if (weightedChunks != 0 && weightedChunks != chunks.length) {
+			throw new IllegalArgumentException("Only " + weightedChunks + " of " + chunks.length + " chunks have weights");
+		}
+		boolean weighted = weightedChunks != 0;
+		long[] offsets = new long[totalNodes + 1];
+		for (EdgeListReader.EdgeList chunk : chunks) {
+			for (int i = 0; i < chunk.count; i++) {
+				offsets[chunk.src[i] + 1]++;
+				if (!directed) {
+					offsets[chunk.dst[i] + 1]++;
+				}
+			}
+		}
+		for (int v = 0; v < totalNodes; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		long m = offsets[totalNodes];
+		long targetsAt = HEADER_BYTES + 8L * (totalNodes + 1);
+		long weightsAt = targetsAt + ((4L * m + 7) & ~7L);
+		long size = weighted ? weightsAt + 4L * m : weightsAt;
+		int flags = (directed ? DIRECTED : 0) | (weighted ? WEIGHTED : 0);
+		try (RandomAccessFile file = new RandomAccessFile(filename, "rw");
+				FileChannel channel = file.getChannel()) {
+			file.setLength(0);
+			file.setLength(size);
+			MappedByteBuffer[] segments = map(channel, FileChannel.MapMode.READ_WRITE, size);
+			segments[0].putInt(0, MAGIC).putInt(4, VERSION).putInt(8, flags).putInt(12, totalNodes).putLong(16, m);
+			for (int v = 0; v <= totalNodes; v++) {
+				putLong(segments, HEADER_BYTES + 8L * v, offsets[v]);
+			}
+			// offsets[v] now is the next free arc of v.
+			for (EdgeListReader.EdgeList chunk : chunks) {
+				for (int i = 0; i < chunk.count; i++) {
+					int a = chunk.src[i], b = chunk.dst[i];
+					long slot = offsets[a]++;
+					putInt(segments, targetsAt + 4 * slot, b);
+					if (weighted) {
+						putInt(segments, weightsAt + 4 * slot, chunk.weight[i]);
+					}
+					if (!directed) {
+						slot = offsets[b]++;
+						putInt(segments, targetsAt + 4 * slot, a);
+						if (weighted) {
+							putInt(segments, weightsAt + 4 * slot, chunk.weight[i]);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void putLong(MappedByteBuffer[] segments, long at, long value) {
+		segments[(int) (at >>> SEGMENT_SHIFT)].putLong((int) (at & SEGMENT_MASK), value);
+	}
+
+	private static void putInt(MappedByteBuffer[] segments, long at, int value) {
+		segments[(int) (at >>> SEGMENT_SHIFT)].putInt((int) (at & SEGMENT_MASK), value);
+	}
+
+	// size bytes of the file as 1 GB segments; the mappings stay valid after
+	// the channel is closed.
+	private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size)
+			throws IOException {
+		MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+		for (int s = 0; s < segments.length; s++) {
+			long start = (long) s << SEGMENT_SHIFT;
+			segments[s] = channel.map(mode, start, Math.min(size - start, 1L << SEGMENT_SHIFT));
+			segments[s].order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return segments;
+	}
+
+	public static void write(Graph graph, String filename) throws IOException {
+		write(CsrGraph.fromGraph(graph), filename);
+	}
+
+	public static void write(DynamicGraph graph, String filename) throws IOException {
+		write(graph.toCsr(), filename);
+	}
+
+	private static long writeOffsets(FileChannel channel, long at, int[] column, int count) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		LongBuffer longs = buffer.asLongBuffer();
+		for (int from = 0; from < count; from += longs.capacity()) {
+			int n = Math.min(longs.capacity(), count - from);
+			longs.clear();
+			for (int i = 0; i < n; i++) {
+				longs.put(column[from + i]);
+			}
+			buffer.clear().limit(n * 8);
+			while (buffer.hasRemaining()) {
+				at += channel.write(buffer, at);
+			}
+		}
+		return at;
+	}
+
+	private static long writeInts(FileChannel channel, long at, int[] column, int count) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+		IntBuffer ints = buffer.asIntBuffer();
+		for (int from = 0; from < count; from += ints.capacity()) {
+			int n = Math.min(ints.capacity(), count - from);
+			ints.clear();
+			ints.put(column, from, n);
+			buffer.clear().limit(n * 4);
+			while (buffer.hasRemaining()) {
+				at += channel.write(buffer, at);
+			}
+		}
+		return at;
+	}
+
+	public static GraphSnapshot open(String filename) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+				FileChannel channel = file.getChannel()) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			channel.read(header, 0);
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+				throw new IOException(filename + " is not a graph snapshot");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException(filename + " has snapshot version " + version + ", expected " + VERSION);
+			}
+			int flags = header.getInt();
+			int n = header.getInt();
+			long m = header.getLong();
+			long expected = HEADER_BYTES + 8L * (n + 1) + ((4L * m + 7) & ~7L)
+				+ ((flags & WEIGHTED) != 0 ? 4L * m : 0);
+			long size = channel.size();
+			if (size < expected) {
+				throw new IOException(filename + " is truncated: " + size + " bytes, expected " + expected);
+			}
+			return new GraphSnapshot(map(channel, FileChannel.MapMode.READ_ONLY, size), n, m, flags);
+		}
+	}
+
+	private long getLong(long at) {
+		return segments[(int) (at >>> SEGMENT_SHIFT)].getLong((int) (at & SEGMENT_MASK));
+	}
+
+	private int getInt(long at) {
+		return segments[(int) (at >>> SEGMENT_SHIFT)].getInt((int) (at & SEGMENT_MASK));
+	}
+
+	public int vertexCount() {
+		return totalNodes;
+	}
+
+	public long arcCount() {
+		return arcs;
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	public boolean isWeighted() {
+		return weighted;
+	}
+
+	public long firstArc(int v) {
+		return getLong(HEADER_BYTES + 8L * v);
+	}
+
+	public long endArc(int v) {
+		return getLong(HEADER_BYTES + 8L * (v + 1));
+	}
+
+	public int degree(int v) {
+		return (int) (endArc(v) - firstArc(v));
+	}
+
+	public int target(long arc) {
+		return getInt(targetsAt + 4 * arc);
+	}
+
+	// 1 for every arc of an unweighted graph.
+	public int weight(long arc) {
+		return weighted ? getInt(weightsAt + 4 * arc) : 1;
+	}
+
+	// Copy into a heap CsrGraph, for the algorithms working on one.
+	public CsrGraph toCsrGraph() {
+		if (arcs > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException(arcs + " arcs do not fit into a CsrGraph");
+		}
+		int m = (int) arcs;
+		int[] offsets = new int[totalNodes + 1];
+		for (int v = 0; v <= totalNodes; v++) {
+			offsets[v] = (int) getLong(HEADER_BYTES + 8L * v);
+		}
+		int[] targets = readInts(targetsAt, m);
+		int[] weights = weighted ? readInts(weightsAt, m) : null;
+		return new CsrGraph(totalNodes, offsets, targets, weights, directed);
+	}
+
+	// Bulk copy of count ints starting at byte at, one segment piece at a time.
+	private int[] readInts(long at, int count) {
+		int[] column = new int[count];
+		int from = 0;
+		while (from < count) {
+			long position = at + 4L * from;
+			int s = (int) (position >>> SEGMENT_SHIFT);
+			int offset = (int) (position & SEGMENT_MASK);
+			int n = Math.min(count - from, (segments[s].capacity() - offset) / 4);
+			ByteBuffer piece = segments[s].duplicate();
+			piece.position(offset);
+			piece.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(column, from, n);
+			from += n;
+		}
+		return column;
+	}
+
+	// Usage: java graphs.GraphSnapshot [vertices] [out degree] [file]
+	public static void main(String[] args) throws IOException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		String filename = args.length > 2 ? args[2] : "graph.csr";
+		CsrGraph graph = Dijkstra.randomGraph(n, degree, 100, 11);
+
+		long start = System.currentTimeMillis();
+		write(graph, filename);
+		long written = System.currentTimeMillis();
+		GraphSnapshot snapshot = open(filename);
+		long opened = System.currentTimeMillis();
+		// Walk the mapped graph directly: total weight of all arcs.
+		long total = 0;
+		for (int v = 0; v < snapshot.vertexCount(); v++) {
+			for (long a = snapshot.firstArc(v); a < snapshot.endArc(v); a++) {
+				total += snapshot.weight(a);
+			}
+		}
+		long walked = System.currentTimeMillis();
+		CsrGraph copy = snapshot.toCsrGraph();
+		long copied = System.currentTimeMillis();
+
+		System.out.println(snapshot.vertexCount() + " vertices, " + snapshot.arcCount() + " arcs, total weight "
+			+ total);
+		System.out.println("write: " + (written - start) + " ms, open: " + (opened - written) + " ms, walk: "
+			+ (walked - opened) + " ms, copy to CsrGraph: " + (copied - walked) + " ms");
+		System.out.println("copy matches: " + (Arrays.equals(graph.offsets, copy.offsets)
+			&& Arrays.equals(graph.targets, copy.targets) && Arrays.equals(graph.weights, copy.weights)
+			&& graph.isDirected() == copy.isDirected()));
+
+		// The same arcs again, handed over as two edge lists and written
+		// without building a CsrGraph.
+		int m = graph.arcCount();
+		int[] src = new int[m];
+		for (int v = 0; v < n; v++) {
+			Arrays.fill(src, graph.offsets[v], graph.offsets[v + 1], v);
+		}
+		int half = m / 2;
+		EdgeListReader.EdgeList first = new EdgeListReader.EdgeList(Arrays.copyOf(src, half),
+			Arrays.copyOf(graph.targets, half), Arrays.copyOf(graph.weights, half), half);
+		EdgeListReader.EdgeList second = new EdgeListReader.EdgeList(Arrays.copyOfRange(src, half, m),
+			Arrays.copyOfRange(graph.targets, half, m), Arrays.copyOfRange(graph.weights, half, m), m - half);
+		start = System.currentTimeMillis();
+		write(n, true, filename, first, second);
+		long streamed = System.currentTimeMillis() - start;
+		CsrGraph again = open(filename).toCsrGraph();
+		System.out.println("edge list write: " + streamed + " ms, matches: "
+			+ (Arrays.equals(graph.offsets, again.offsets) && Arrays.equals(graph.targets, again.targets)
+			&& Arrays.equals(graph.weights, again.weights)));
+	}
+}
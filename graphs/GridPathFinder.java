@@ -0,0 +1,558 @@
+/* Shortest paths on a grid stored as one flat byte[] (cell = y * width + x).
+ * A cell holding WALL (0) is blocked, anything else is open; this is the
+ * 0-is-a-brick-wall convention of problem_solving.FindPathInMatrix.
+ *
+ *  - bfs:              4-connected, every step costs 1.
+ *  - zeroOneBfs:       4-connected, entering an open cell costs 0 and a wall
+ *                      costs 1: the fewest walls to break through. Deque based.
+ *  - aStar(MANHATTAN): 4-connected, same cost as bfs but guided to the goal.
+ *  - aStar(OCTILE):    8-connected, STRAIGHT per straight step and DIAGONAL
+ *                      per diagonal step; a diagonal step needs both cells
+ *                      beside it open (no corner cutting).
+ *  - jumpPointSearch:  same moves and costs as aStar(OCTILE), but on open
+ *                      areas it jumps along straight and diagonal lines and only
+ *                      queues the cells where the optimal route can turn
+ *                      (Harabor, Grastien - "Online Graph Pruning for Pathfinding
+ *                      on Grid Maps"). All jumps are loops, no recursion.
+ *
+ * Per-cell arrays are allocated once per finder and tagged with a search
+ * number, so a new search neither allocates nor clears them. The open list
+ * is a binary heap over (f << 32 | h) long keys with a parallel int[] of
+ * cells; preferring the smaller h on equal f stops A* from widening over
+ * the many equal-f cells of open areas.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+
+public class GridPathFinder {
+	public static final byte WALL = 0;
+	public static final byte OPEN = 1;
+	public static final int STRAIGHT = 10;
+	public static final int DIAGONAL = 14;
+
+	public enum Heuristic { MANHATTAN, OCTILE }
+
+	private static final int[] DX4 = {1, -1, 0, 0};
+	private static final int[] DY4 = {0, 0, 1, -1};
+	private static final int[] DX8 = {1, -1, 0, 0, 1, 1, -1, -1};
+	private static final int[] DY8 = {0, 0, 1, -1, 1, -1, 1, -1};
+
+	private final byte[] grid;
+	private final int width;
+	private final int height;
+	private final int[] cost;
+	private final int[] parent;
+	// cost/parent of a cell are valid when mark == search, closed when closed == search.
+	private final int[] mark;
+	private final int[] closed;
+	private int search;
+	private int lastGoal = -1;
+	private boolean jumped;
+	private long[] heapKeys = new long[1024];
+	private int[] heapCells = new int[1024];
+	private int heapSize;
+	private int poppedF;
+	private int[] deque = new int[1024];
+
+	public GridPathFinder(byte[] grid, int width, int height) {
+		if (grid.length != width * height) {
+			throw new IllegalArgumentException("Grid is not " + width + " x " + height);
+		}
+		this.grid = grid;
+		this.width = width;
+		this.height = height;
+		int cells = width * height;
+		cost = new int[cells];
+		parent = new int[cells];
+		mark = new int[cells];
+		closed = new int[cells];
+	}
+
+	public int cell(int x, int y) {
+		return y * width + x;
+	}
+
+	private boolean open(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height && grid[y * width + x] != WALL;
+	}
+
+	private void begin(int start, int goal) {
+		search++;
+		lastGoal = goal;
+		jumped = false;
+		heapSize = 0;
+		mark[start] = search;
+		cost[start] = 0;
+		parent[start] = -1;
+	}
+
+	private boolean known(int c) {
+		return mark[c] == search;
+	}
+
+	private void reach(int c, int g, int from) {
+		mark[c] = search;
+		cost[c] = g;
+		parent[c] = from;
+	}
+
+	// Steps of the shortest 4-connected path, -1 if there is none.
+	public int bfs(int start, int goal) {
+		begin(start, goal);
+		if (grid[start] == WALL) {
+			return -1;
+		}
+		int[] queue = ensureDeque(width * height);
+		int head = 0, tail = 0;
+		queue[tail++] = start;
+		while (head < tail) {
+			int c = queue[head++];
+			if (c == goal) {
+				return cost[c];
+			}
+			int x = c % width, y = c / width;
+			for (int d = 0; d < 4; d++) {
+				int nx = x + DX4[d], ny = y + DY4[d];
+				if (open(nx, ny)) {
+					int n = ny * width + nx;
+					if (!known(n)) {
+						reach(n, cost[c] + 1, c);
+						queue[tail++] = n;
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	// Fewest walls entered on a 4-connected path from start to goal.
+	public int zeroOneBfs(int start, int goal) {
+		begin(start, goal);
+		int[] dq = ensureDeque(1024);
+		int mask = dq.length - 1;
+		int head = 0, size = 0;
+		dq[0] = start;
+		size = 1;
+		while (size > 0) {
+			int c = dq[head];
+			head = (head + 1) & mask;
+			size--;
+			if (closed[c] == search) {
+				continue;
+			}
+			closed[c] = search;
+			if (c == goal) {
+				return cost[c];
+			}
+			int x = c % width, y = c / width;
+			for (int d = 0; d < 4; d++) {
+				int nx = x + DX4[d], ny = y + DY4[d];
+				if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+					continue;
+				}
+				int n = ny * width + nx;
+				int step = grid[n] == WALL ? 1 : 0;
+				int g = cost[c] + step;
+				if (!known(n) || g < cost[n]) {
+					reach(n, g, c);
+					if (size == dq.length) {
+						dq = growDeque(dq, head, size);
+						mask = dq.length - 1;
+						head = 0;
+					}
+					// Free steps go to the front, paid ones to the back.
+					if (step == 0) {
+						head = (head - 1) & mask;
+						dq[head] = n;
+					}
+					else {
+						dq[(head + size) & mask] = n;
+					}
+					size++;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private int[] ensureDeque(int capacity) {
+		if (deque.length < capacity) {
+			deque = new int[Integer.highestOneBit(capacity - 1) << 1];
+		}
+		return deque;
+	}
+
+	private int[] growDeque(int[] dq, int head, int size) {
+		int[] bigger = new int[dq.length * 2];
+		for (int i = 0; i < size; i++) {
+			bigger[i] = dq[(head + i) & (dq.length - 1)];
+		}
+		deque = bigger;
+		return bigger;
+	}
+
+	private int heuristic(Heuristic h, int c, int goal) {
+		int dx = Math.abs(c % width - goal % width);
+		int dy = Math.abs(c / width - goal / width);
+		if (h == Heuristic.MANHATTAN) {
+			return dx + dy;
+		}
+		return STRAIGHT * Math.max(dx, dy) + (DIAGONAL - STRAIGHT) * Math.min(dx, dy);
+	}
+
+	/* A* with a consistent heuristic: the first time a cell is popped its
+	 * cost is final. Stale heap entries are recognised by f != cost + h.
+	 * Returns the path cost, -1 if there is none.
+	 */
+	public int aStar(int start, int goal, Heuristic h) {
+		begin(start, goal);
+		if (grid[start] == WALL || grid[goal] == WALL) {
+			return -1;
+		}
+		boolean diagonal = h == Heuristic.OCTILE;
+		int directions = diagonal ? 8 : 4;
+		int[] dxs = diagonal ? DX8 : DX4;
+		int[] dys = diagonal ? DY8 : DY4;
+		push(heuristic(h, start, goal), heuristic(h, start, goal), start);
+		while (heapSize > 0) {
+			int c = pop();
+			if (closed[c] == search || poppedF != cost[c] + heuristic(h, c, goal)) {
+				continue;
+			}
+			closed[c] = search;
+			if (c == goal) {
+				return cost[c];
+			}
+			int x = c % width, y = c / width;
+			for (int d = 0; d < directions; d++) {
+				int dx = dxs[d], dy = dys[d];
+				int nx = x + dx, ny = y + dy;
+				if (!open(nx, ny)) {
+					continue;
+				}
+				int step = 1;
+				if (diagonal) {
+					if (dx != 0 && dy != 0) {
+						if (!open(x + dx, y) || !open(x, y + dy)) {
+							continue;
+						}
+						step = DIAGONAL;
+					}
+					else {
+						step = STRAIGHT;
+					}
+				}
+				int n = ny * width + nx;
+				int g = cost[c] + step;
+				if (!known(n) || g < cost[n]) {
+					reach(n, g, c);
+					int estimate = heuristic(h, n, goal);
+					push(g + estimate, estimate, n);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/* Jump point search with the same result as aStar(start, goal, OCTILE).
+	 * parent[] links jump points; path() fills in the cells between them.
+	 */
+	public int jumpPointSearch(int start, int goal) {
+		begin(start, goal);
+		jumped = true;
+		if (grid[start] == WALL || grid[goal] == WALL) {
+			return -1;
+		}
+		int[] dirs = new int[16];
+		int startEstimate = heuristic(Heuristic.OCTILE, start, goal);
+		push(startEstimate, startEstimate, start);
+		while (heapSize > 0) {
+			int c = pop();
+			if (closed[c] == search || poppedF != cost[c] + heuristic(Heuristic.OCTILE, c, goal)) {
+				continue;
+			}
+			closed[c] = search;
+			if (c == goal) {
+				return cost[c];
+			}
+			int x = c % width, y = c / width;
+			int count = neighborDirections(c, x, y, dirs);
+			for (int k = 0; k < count; k += 2) {
+				int dx = dirs[k], dy = dirs[k + 1];
+				int j = (dx != 0 && dy != 0) ? jumpDiagonal(x + dx, y + dy, dx, dy, goal)
+					: jumpStraight(x + dx, y + dy, dx, dy, goal);
+				if (j == -1 || closed[j] == search) {
+					continue;
+				}
+				int g = cost[c] + heuristic(Heuristic.OCTILE, j, c);
+				if (!known(j) || g < cost[j]) {
+					reach(j, g, c);
+					int estimate = heuristic(Heuristic.OCTILE, j, goal);
+					push(g + estimate, estimate, j);
+				}
+			}
+		}
+		return -1;
+	}
+
+	// Directions worth jumping in from c, given the direction it was reached from.
+	private int neighborDirections(int c, int x, int y, int[] dirs) {
+		int count = 0;
+		if (parent[c] == -1) {
+			for (int d = 0; d < 8; d++) {
+				if (DX8[d] != 0 && DY8[d] != 0 && (!open(x + DX8[d], y) || !open(x, y + DY8[d]))) {
+					continue;
+				}
+				dirs[count++] = DX8[d];
+				dirs[count++] = DY8[d];
+			}
+			return count;
+		}
+		int dx = Integer.signum(x - parent[c] % width);
+		int dy = Integer.signum(y - parent[c] / width);
+		if (dx != 0 && dy != 0) {
+			boolean vertical = open(x, y + dy);
+			boolean horizontal = open(x + dx, y);
+			if (vertical) {
+				dirs[count++] = 0;
+				dirs[count++] = dy;
+			}
+			if (horizontal) {
+				dirs[count++] = dx;
+				dirs[count++] = 0;
+			}
+			if (vertical && horizontal) {
+				dirs[count++] = dx;
+				dirs[count++] = dy;
+			}
+		}
+		else if (dx != 0) {
+			boolean next = open(x + dx, y), up = open(x, y + 1), down = open(x, y - 1);
+			if (next) {
+				dirs[count++] = dx;
+				dirs[count++] = 0;
+				if (up) {
+					dirs[count++] = dx;
+					dirs[count++] = 1;
+				}
+				if (down) {
+					dirs[count++] = dx;
+					dirs[count++] = -1;
+				}
+			}
+			if (up) {
+				dirs[count++] = 0;
+				dirs[count++] = 1;
+			}
+			if (down) {
+				dirs[count++] = 0;
+				dirs[count++] = -1;
+			}
+		}
+		else {
+			boolean next = open(x, y + dy), right = open(x + 1, y), left = open(x - 1, y);
+			if (next) {
+				dirs[count++] = 0;
+				dirs[count++] = dy;
+				if (right) {
+					dirs[count++] = 1;
+					dirs[count++] = dy;
+				}
+				if (left) {
+					dirs[count++] = -1;
+					dirs[count++] = dy;
+				}
+			}
+			if (right) {
+				dirs[count++] = 1;
+				dirs[count++] = 0;
+			}
+			if (left) {
+				dirs[count++] = -1;
+				dirs[count++] = 0;
+			}
+		}
+		return count;
+	}
+
+	// Walk from (x, y) in a straight line until the goal, a wall, or a cell
+	// where a blocked cell beside the line makes turning there worthwhile.
+	private int jumpStraight(int x, int y, int dx, int dy, int goal) {
+		while (open(x, y)) {
+			int c = y * width + x;
+			if (c == goal) {
+				return c;
+			}
+			if (dx != 0) {
+				if ((open(x, y - 1) && !open(x - dx, y - 1)) || (open(x, y + 1) && !open(x - dx, y + 1))) {
+					return c;
+				}
+			}
+			else if ((open(x - 1, y) && !open(x - 1, y - dy)) || (open(x + 1, y) && !open(x + 1, y - dy))) {
+				return c;
+			}
+			x += dx;
+			y += dy;
+		}
+		return -1;
+	}
+
+	// Walk diagonally, stopping where one of the two straight jumps finds something.
+	private int jumpDiagonal(int x, int y, int dx, int dy, int goal) {
+		while (open(x, y)) {
+			int c = y * width + x;
+			if (c == goal) {
+				return c;
+			}
+			if (jumpStraight(x + dx, y, dx, 0, goal) != -1 || jumpStraight(x, y + dy, 0, dy, goal) != -1) {
+				return c;
+			}
+			if (!open(x + dx, y) || !open(x, y + dy)) {
+				return -1;
+			}
+			x += dx;
+			y += dy;
+		}
+		return -1;
+	}
+
+	/* Cells from start to goal of the last successful search, or null.
+	 * Jump point links are expanded one cell at a time.
+	 */
+	public int[] path() {
+		if (lastGoal == -1 || !known(lastGoal)) {
+			return null;
+		}
+		int length = 1;
+		for (int c = lastGoal; parent[c] != -1; c = parent[c]) {
+			length += jumped ? segmentLength(parent[c], c) : 1;
+		}
+		int[] path = new int[length];
+		int at = length - 1;
+		path[at] = lastGoal;
+		for (int c = lastGoal; parent[c] != -1; c = parent[c]) {
+			int p = parent[c];
+			if (!jumped) {
+				path[--at] = p;
+				continue;
+			}
+			int dx = Integer.signum(p % width - c % width);
+			int dy = Integer.signum(p / width - c / width);
+			int x = c % width, y = c / width;
+			for (int s = segmentLength(p, c); s > 0; s--) {
+				x += dx;
+				y += dy;
+				path[--at] = y * width + x;
+			}
+		}
+		return path;
+	}
+
+	private int segmentLength(int a, int b) {
+		return Math.max(Math.abs(a % width - b % width), Math.abs(a / width - b / width));
+	}
+
+	// Heap order: lower f first, and among equal f the lower h (deeper) cell.
+	private void push(int f, int h, int c) {
+		if (heapSize == heapKeys.length) {
+			heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+			heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+		}
+		long key = ((long) f << 32) | h;
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (heapKeys[up] <= key) {
+				break;
+			}
+			heapKeys[i] = heapKeys[up];
+			heapCells[i] = heapCells[up];
+			i = up;
+		}
+		heapKeys[i] = key;
+		heapCells[i] = c;
+	}
+
+	// Removes the top entry; its f is left in poppedF.
+	private int pop() {
+		int top = heapCells[0];
+		poppedF = (int) (heapKeys[0] >>> 32);
+		heapSize--;
+		long key = heapKeys[heapSize];
+		int c = heapCells[heapSize];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+				child++;
+			}
+			if (heapKeys[child] >= key) {
+				break;
+			}
+			heapKeys[i] = heapKeys[child];
+			heapCells[i] = heapCells[child];
+			i = child;
+		}
+		heapKeys[i] = key;
+		heapCells[i] = c;
+		return top;
+	}
+
+	// Grid with the given share of walls, 2 x 2 start and goal corners kept open.
+	static byte[] randomGrid(int width, int height, double walls, long seed) {
+		Random rm = new Random(seed);
+		byte[] grid = new byte[width * height];
+		for (int i = 0; i < grid.length; i++) {
+			grid[i] = rm.nextDouble() < walls ? WALL : OPEN;
+		}
+		int[] corners = {0, 1, width, width + 1};
+		for (int c : corners) {
+			grid[c] = OPEN;
+			grid[grid.length - 1 - c] = OPEN;
+		}
+		return grid;
+	}
+
+	// Usage: java graphs.GridPathFinder [width] [height] [share of walls]
+	public static void main(String[] args) {
+		// 1 is open, 0 is a wall.
+		byte[] small = {
+			1, 1, 1, 1,
+			0, 0, 1, 0,
+			1, 1, 1, 1,
+			1, 0, 0, 1
+		};
+		GridPathFinder finder = new GridPathFinder(small, 4, 4);
+		System.out.println("BFS steps: " + finder.bfs(0, 15) + ", path " + Arrays.toString(finder.path()));
+		System.out.println("JPS cost: " + finder.jumpPointSearch(0, 15) + ", path " + Arrays.toString(finder.path()));
+		System.out.println("Walls to break from 0 to 13: " + finder.zeroOneBfs(0, 13));
+
+		int width = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+		int height = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+		double walls = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+		GridPathFinder big = new GridPathFinder(randomGrid(width, height, walls, 1), width, height);
+		int goal = width * height - 1;
+
+		long start = System.currentTimeMillis();
+		int steps = big.bfs(0, goal);
+		long t1 = System.currentTimeMillis();
+		int manhattan = big.aStar(0, goal, Heuristic.MANHATTAN);
+		long t2 = System.currentTimeMillis();
+		int breaks = big.zeroOneBfs(0, goal);
+		long t3 = System.currentTimeMillis();
+		int octile = big.aStar(0, goal, Heuristic.OCTILE);
+		long t4 = System.currentTimeMillis();
+		int jps = big.jumpPointSearch(0, goal);
+		long t5 = System.currentTimeMillis();
+		System.out.println("BFS: " + steps + " steps, " + (t1 - start) + " ms");
+		System.out.println("A* manhattan: " + manhattan + " steps, " + (t2 - t1) + " ms");
+		System.out.println("0-1 BFS: " + breaks + " walls, " + (t3 - t2) + " ms");
+		System.out.println("A* octile: cost " + octile + ", " + (t4 - t3) + " ms");
+		System.out.println("JPS: cost " + jps + ", " + (t5 - t4) + " ms");
+	}
+}
@@ -0,0 +1,205 @@
+/* Depth first search without recursion.
+ * The recursive startDFS methods need one stack frame per vertex and throw
+ * StackOverflowError on long paths. Here the call stack is an int[] of
+ * vertices plus the index of the next arc to look at for every vertex, so
+ * the depth is only limited by the heap.
+ *
+ * A run records discovery/finish times, the DFS parent of every vertex,
+ * whether a cycle was seen and the reverse postorder, which is a
+ * topological order when the directed graph has no cycle.
+ * Callers can plug in a Visitor to get pre-order and post-order callbacks.
+ */
+
+package graphs;
+import java.util.Arrays;
+
+public class IterativeDFS {
+	private static final byte WHITE = 0, GRAY = 1, BLACK = 2;
+
+	// Callbacks of a run; all of them default to doing nothing.
+	public interface Visitor {
+		// v is discovered from parent (-1 for a root).
+		default void preVisit(int v, int parent) {}
+		// All arcs of v are done.
+		default void postVisit(int v, int parent) {}
+		// Arc from -> to closes a cycle.
+		default void backArc(int from, int to) {}
+	}
+
+	private static final Visitor NO_OP = new Visitor() {};
+
+	private final CsrGraph graph;
+	private final byte[] state;
+	private final int[] stack;
+	private final int[] nextArc;
+	private final int[] parent;
+	private final int[] discovery;
+	private final int[] finish;
+	private final int[] postOrder;
+	// Undirected graphs: marks vertices which already skipped the arc back to their parent.
+	private final long[] parentSkipped;
+	private int time;
+	private int finished;
+	private boolean cyclePresent;
+
+	public IterativeDFS(CsrGraph graph) {
+		int n = graph.vertexCount();
+		this.graph = graph;
+		state = new byte[n];
+		stack = new int[n];
+		nextArc = new int[n];
+		parent = new int[n];
+		discovery = new int[n];
+		finish = new int[n];
+		postOrder = new int[n];
+		parentSkipped = graph.isDirected() ? null : new long[(n + 63) >>> 6];
+		Arrays.fill(parent, -1);
+	}
+
+	// Visit everything reachable from source which was not visited before.
+	public void run(int source, Visitor visitor) {
+		if (state[source] == WHITE) {
+			visitTree(source, visitor);
+		}
+	}
+
+	// Visit the whole graph, starting a new tree at every unvisited vertex.
+	public void runAll(Visitor visitor) {
+		for (int v = 0; v < graph.vertexCount(); v++) {
+			if (state[v] == WHITE) {
+				visitTree(v, visitor);
+			}
+		}
+	}
+
+	public void runAll() {
+		runAll(NO_OP);
+	}
+
+	private void visitTree(int root, Visitor visitor) {
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		boolean directed = graph.isDirected();
+		int top = 0;
+
+		discover(root, -1, visitor);
+		stack[top++] = root;
+		while (top > 0) {
+			int u = stack[top - 1];
+			int arc = nextArc[u];
+			if (arc == offsets[u + 1]) {
+				// All neighbors done: pop u.
+				top--;
+				state[u] = BLACK;
+				finish[u] = time++;
+				postOrder[finished++] = u;
+				visitor.postVisit(u, parent[u]);
+				continue;
+			}
+			nextArc[u] = arc + 1;
+			int w = targets[arc];
+			if (state[w] == WHITE) {
+				discover(w, u, visitor);
+				stack[top++] = w;
+			}
+			else if (state[w] == GRAY) {
+				if (!directed && w == parent[u] && !skipParent(u)) {
+					continue;
+				}
+				cyclePresent = true;
+				visitor.backArc(u, w);
+			}
+		}
+	}
+
+	private void discover(int v, int from, Visitor visitor) {
+		state[v] = GRAY;
+		parent[v] = from;
+		discovery[v] = time++;
+		nextArc[v] = graph.offsets[v];
+		visitor.preVisit(v, from);
+	}
+
+	// The first arc back to the parent is the tree edge itself; a second
+	// one is a parallel edge and therefore a cycle.
+	private boolean skipParent(int v) {
+		long bit = 1L << v;
+		boolean skipped = (parentSkipped[v >>> 6] & bit) != 0;
+		parentSkipped[v >>> 6] |= bit;
+		return skipped;
+	}
+
+	public boolean hasCycle() {
+		return cyclePresent;
+	}
+
+	public int discoveryTime(int v) {
+		return discovery[v];
+	}
+
+	public int finishTime(int v) {
+		return finish[v];
+	}
+
+	public int parent(int v) {
+		return parent[v];
+	}
+
+	/* Vertices in reverse postorder of the runs so far.
+	 * For a directed graph without cycles this is a topological order;
+	 * returns null when a cycle was found.
+	 */
+	public int[] topologicalOrder() {
+		if (cyclePresent) {
+			return null;
+		}
+		int[] order = new int[finished];
+		for (int i = 0; i < finished; i++) {
+			order[i] = postOrder[finished - 1 - i];
+		}
+		return order;
+	}
+
+	// Usage: java graphs.IterativeDFS [length of the chain]
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+		// A single directed path 0 -> 1 -> ... -> n-1, far deeper than any call stack.
+		int[] src = new int[n - 1];
+		int[] dst = new int[n - 1];
+		for (int i = 0; i < n - 1; i++) {
+			src[i] = i;
+			dst[i] = i + 1;
+		}
+		CsrGraph chain = CsrGraph.fromEdges(n, src, dst, null, n - 1, true);
+		long start = System.currentTimeMillis();
+		IterativeDFS dfs = new IterativeDFS(chain);
+		dfs.runAll();
+		int[] order = dfs.topologicalOrder();
+		System.out.println("Chain of " + n + " vertices in " + (System.currentTimeMillis() - start) + " ms");
+		System.out.println("Cycle: " + dfs.hasCycle() + ", first/last in topological order: "
+			+ order[0] + " " + order[n - 1] + ", finish time of the source: " + dfs.finishTime(0));
+
+		/* 1 ---- 2
+		 * |  \   |
+		 * |   \  |
+		 * 3      4
+		 */
+		int[] a = {1, 1, 1, 2};
+		int[] b = {2, 3, 4, 4};
+		IterativeDFS small = new IterativeDFS(CsrGraph.fromEdges(5, a, b, null, 4, false));
+		small.run(1, new Visitor() {
+			@Override
+			public void preVisit(int v, int parent) {
+				System.out.print(v + " ");
+			}
+
+			@Override
+			public void backArc(int from, int to) {
+				System.out.print("(cycle " + from + "-" + to + ") ");
+			}
+		});
+		System.out.println();
+		System.out.println(small.hasCycle() ? "Cycle found" : "Cycle not found");
+	}
+}
@@ -0,0 +1,325 @@
+/* Bit-parallel multi-source breadth first search.
+ * Paper: Then, Kaufmann, Chirigati, Hoang-Vu, Pham, Kemper, Neumann, Vo -
+ *        "The More the Merrier: Efficient Multi-Source Graph Traversal"
+ *
+ * Up to 64 searches share one traversal. Bit i of a long word stands for
+ * source i of the batch, and per vertex there are three words:
+ * seen (searches that reached it), visit (searches whose frontier holds it)
+ * and next. The frontier is also kept as a list of the vertices whose visit
+ * word is non zero. A level computes
+ *
+ *   next[v] = (OR of visit[u] over arcs u -> v) & ~seen[v]
+ *
+ * top-down while the frontier is small: every frontier vertex ORs its word
+ * into the next word of its neighbors with a CAS, and the thread that makes
+ * a word non zero queues the vertex, so a level costs the arcs leaving the
+ * frontier and every arc is expanded once per level its tail is in it.
+ * When the arcs leaving the frontier exceed arcCount / ALPHA, as in
+ * ParallelBFS, the level is a pull instead: every vertex not yet seen by the
+ * whole batch ORs the visit words of its incoming arcs, stopping once it has
+ * found every missing search. The levels run on the common ForkJoinPool;
+ * visit and next are swapped between levels and only the words of the old
+ * frontier are cleared. More than 64 sources are handled in batches of 64,
+ * and the graph and its transpose are built once and reused across queries.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+public class MultiSourceBFS {
+	public static final int BATCH = 64;
+	private static final int ALPHA = 15;
+	private static final int GRAIN = 1 << 11;
+
+	// Called, possibly concurrently for different vertices, when the search
+	// from sources[index] reaches vertex at the given depth.
+	public interface Visitor {
+		void reached(int index, int vertex, int depth);
+	}
+
+	private final CsrGraph graph;
+	private final CsrGraph incoming;
+
+	public MultiSourceBFS(CsrGraph graph) {
+		this.graph = graph;
+		this.incoming = graph.isDirected() ? graph.transpose() : graph;
+	}
+
+	public void run(int[] sources, Visitor visitor) {
+		int n = graph.vertexCount();
+		long[] seen = new long[n];
+		AtomicLongArray visit = new AtomicLongArray(n);
+		AtomicLongArray next = new AtomicLongArray(n);
+		for (int from = 0; from < sources.length; from += BATCH) {
+			int batch = Math.min(BATCH, sources.length - from);
+			// visit and next are all zero again when a batch ends.
+			runBatch(sources, from, batch, seen, visit, next, visitor);
+			Arrays.fill(seen, 0);
+		}
+	}
+
+	private void runBatch(int[] sources, int from, int batch, long[] seen, AtomicLongArray visit,
+			AtomicLongArray next, Visitor visitor) {
+		long all = batch == BATCH ? -1L : (1L << batch) - 1;
+		int[] frontier = new int[batch];
+		int size = 0;
+		for (int i = 0; i < batch; i++) {
+			int s = sources[from + i];
+			seen[s] |= 1L << i;
+			if (visit.get(s) == 0) {
+				frontier[size++] = s;
+			}
+			visit.set(s, visit.get(s) | 1L << i);
+			visitor.reached(from + i, s, 0);
+		}
+		frontier = Arrays.copyOf(frontier, size);
+		long arcs = graph.arcCount();
+		for (int depth = 1; frontier.length > 0; depth++) {
+			long scout = 0;
+			for (int u : frontier) {
+				scout += graph.degree(u);
+			}
+			int[] reached = scout > arcs / ALPHA
+				? bottomUpStep(visit, next, seen, all)
+				: topDownStep(frontier, visit, next, seen);
+			final int level = depth;
+			final AtomicLongArray found = next;
+			split(IntStream.of(reached), reached.length).forEach(v -> {
+				long bits = found.get(v);
+				seen[v] |= bits;
+				for (; bits != 0; bits &= bits - 1) {
+					visitor.reached(from + Long.numberOfTrailingZeros(bits), v, level);
+				}
+			});
+			final AtomicLongArray done = visit;
+			split(IntStream.of(frontier), frontier.length).forEach(u -> done.set(u, 0));
+			visit = next;
+			next = done;
+			frontier = reached;
+		}
+	}
+
+	// Frontier vertices push their words to their neighbors; returns the
+	// vertices whose next word became non zero.
+	private int[] topDownStep(int[] frontier, AtomicLongArray visit, AtomicLongArray next, long[] seen) {
+		int parts = ParallelBFS.chunks(frontier.length);
+		int[][] found = new int[parts][];
+		int[] sizes = new int[parts];
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		split(IntStream.range(0, parts), frontier.length).forEach(p -> {
+			int from = (int) ((long) frontier.length * p / parts);
+			int to = (int) ((long) frontier.length * (p + 1) / parts);
+			int[] local = new int[Math.max(16, to - from)];
+			int size = 0;
+			for (int q = from; q < to; q++) {
+				int u = frontier[q];
+				long bits = visit.get(u);
+				for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+					int v = targets[i];
+					long add = bits & ~seen[v];
+					long current = next.get(v);
+					while ((current & add) != add) {
+						if (next.compareAndSet(v, current, current | add)) {
+							if (current == 0) {
+								if (size == local.length) {
+									local = Arrays.copyOf(local, size * 2);
+								}
+								local[size++] = v;
+							}
+							break;
+						}
+						current = next.get(v);
+					}
+				}
+			}
+			found[p] = local;
+			sizes[p] = size;
+		});
+		return concat(found, sizes);
+	}
+
+	// Every vertex not seen by the whole batch pulls the words of its
+	// incoming arcs; each next word is written by one thread only.
+	private int[] bottomUpStep(AtomicLongArray visit, AtomicLongArray next, long[] seen, long all) {
+		int n = graph.vertexCount();
+		int parts = ParallelBFS.chunks(n);
+		int[][] found = new int[parts][];
+		int[] sizes = new int[parts];
+		int[] inOffsets = incoming.offsets;
+		int[] inSources = incoming.targets;
+		split(IntStream.range(0, parts), n).forEach(p -> {
+			int from = (int) ((long) n * p / parts);
+			int to = (int) ((long) n * (p + 1) / parts);
+			int[] local = new int[16];
+			int size = 0;
+			for (int v = from; v < to; v++) {
+				long missing = all & ~seen[v];
+				if (missing == 0) {
+					continue;
+				}
+				long bits = 0;
+				for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+					bits |= visit.get(inSources[i]);
+					if ((bits & missing) == missing) {
+						break;
+					}
+				}
+				bits &= missing;
+				if (bits != 0) {
+					next.set(v, bits);
+					if (size == local.length) {
+						local = Arrays.copyOf(local, size * 2);
+					}
+					local[size++] = v;
+				}
+			}
+			found[p] = local;
+			sizes[p] = size;
+		});
+		return concat(found, sizes);
+	}
+
+	// Parallel only when the work is worth splitting; a long thin search
+	// would otherwise pay the pool's overhead several times every level.
+	private static IntStream split(IntStream items, int work) {
+		return work > GRAIN ? items.parallel() : items;
+	}
+
+	private static int[] concat(int[][] parts, int[] sizes) {
+		int total = 0;
+		for (int size : sizes) {
+			total += size;
+		}
+		int[] all = new int[total];
+		int at = 0;
+		for (int p = 0; p < parts.length; p++) {
+			System.arraycopy(parts[p], 0, all, at, sizes[p]);
+			at += sizes[p];
+		}
+		return all;
+	}
+
+	// dist[i][v] is the hop distance from sources[i] to v, -1 when unreachable.
+	public int[][] distances(int[] sources) {
+		int n = graph.vertexCount();
+		int[][] dist = new int[sources.length][n];
+		for (int[] row : dist) {
+			Arrays.fill(row, -1);
+		}
+		run(sources, (index, vertex, depth) -> dist[index][vertex] = depth);
+		return dist;
+	}
+
+	/* Hop distance of every pair from[i] -> to[i], -1 when unreachable.
+	 * Pairs are grouped by source, so repeated sources cost one search bit.
+	 */
+	public int[] distances(int[] from, int[] to) {
+		if (from.length != to.length) {
+			throw new IllegalArgumentException("Expected as many targets as sources");
+		}
+		int[] sources = from.clone();
+		Arrays.sort(sources);
+		int unique = 0;
+		for (int i = 0; i < sources.length; i++) {
+			if (i == 0 || sources[i] != sources[i - 1]) {
+				sources[unique++] = sources[i];
+			}
+		}
+		sources = Arrays.copyOf(sources, unique);
+
+		// Queries of each source, bucketed by the index of the source.
+		int[] start = new int[unique + 1];
+		int[] slot = new int[from.length];
+		for (int i = 0; i < from.length; i++) {
+			slot[i] = Arrays.binarySearch(sources, from[i]);
+			start[slot[i] + 1]++;
+		}
+		for (int i = 0; i < unique; i++) {
+			start[i + 1] += start[i];
+		}
+		int[] queries = new int[from.length];
+		int[] fill = Arrays.copyOf(start, unique);
+		for (int i = 0; i < from.length; i++) {
+			queries[fill[slot[i]]++] = i;
+		}
+
+		int[] answer = new int[from.length];
+		for (int first = 0; first < unique; first += BATCH) {
+			// One batch at a time so that only n depths per source are kept.
+			int size = Math.min(BATCH, unique - first);
+			int[][] dist = distances(Arrays.copyOfRange(sources, first, first + size));
+			for (int i = 0; i < size; i++) {
+				for (int q = start[first + i]; q < start[first + i + 1]; q++) {
+					answer[queries[q]] = dist[i][to[queries[q]]];
+				}
+			}
+		}
+		return answer;
+	}
+
+	// Usage: java graphs.MultiSourceBFS [vertices] [degree] [sources]
+	public static void main(String[] args) {
+		/* 0 - 1 - 2 - 3   4 */
+		int[] a = {0, 1, 2};
+		int[] b = {1, 2, 3};
+		MultiSourceBFS small = new MultiSourceBFS(CsrGraph.fromEdges(5, a, b, null, 3, false));
+		int[][] d = small.distances(new int[] {0, 3});
+		System.out.println("From 0: " + Arrays.toString(d[0]) + ", from 3: " + Arrays.toString(d[1]));
+
+		// A long path: the frontier stays tiny, so every level must be cheap.
+		int length = 200000;
+		int[] tail = new int[length - 1];
+		int[] head = new int[length - 1];
+		for (int i = 0; i < length - 1; i++) {
+			tail[i] = i;
+			head[i] = i + 1;
+		}
+		CsrGraph path = CsrGraph.fromEdges(length, tail, head, null, length - 1, true);
+		int[] ends = new int[BATCH];
+		for (int i = 0; i < BATCH; i++) {
+			ends[i] = i * (length / BATCH);
+		}
+		long begin = System.currentTimeMillis();
+		int[][] along = new MultiSourceBFS(path).distances(ends);
+		System.out.println("Directed path of " + length + ": " + (System.currentTimeMillis() - begin)
+			+ " ms, matches serial BFS: " + Arrays.equals(along[BATCH - 1], ParallelBFS.serialBFS(path, ends[BATCH - 1])));
+
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int count = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+		CsrGraph g = ParallelBFS.randomGraph(n, degree, 5);
+		int[] sources = new int[count];
+		for (int i = 0; i < count; i++) {
+			sources[i] = (int) ((long) i * n / count);
+		}
+		MultiSourceBFS msbfs = new MultiSourceBFS(g);
+		LongAdder reached = new LongAdder();
+		long start = System.currentTimeMillis();
+		msbfs.run(sources, (index, vertex, depth) -> {
+			if (index == 0) {
+				reached.increment();
+			}
+		});
+		long batched = System.currentTimeMillis() - start;
+
+		int checked = Math.min(count, 16);
+		int[][] dist = msbfs.distances(Arrays.copyOf(sources, checked));
+		boolean same = true;
+		start = System.currentTimeMillis();
+		for (int i = 0; i < checked; i++) {
+			same &= Arrays.equals(dist[i], ParallelBFS.serialBFS(g, sources[i]));
+		}
+		long serial = (System.currentTimeMillis() - start) * count / checked;
+		System.out.println(count + " sources in " + batched + " ms (about " + serial
+			+ " ms one BFS at a time), " + reached.sum() + " vertices reached from the first; matches serial BFS: "
+			+ same);
+
+		int[] from = {sources[0], sources[0], 0};
+		int[] to = {sources[count - 1], 1, n - 1};
+		System.out.println("Pair distances: " + Arrays.toString(msbfs.distances(from, to)));
+	}
+}
@@ -0,0 +1,266 @@
+/* PageRank of a directed CsrGraph.
+ *
+ *   rank[v] = (1 - d) / n + d * (sum of rank[u] / outDegree(u) over arcs u -> v
+ *                                + rank of all dangling vertices / n)
+ *
+ * Vertices without outgoing arcs (dangling) spread their rank evenly over
+ * all vertices, so the ranks always add up to 1.
+ *
+ * compute(): pull-based power iteration. Each vertex sums the contributions
+ * of its in-neighbors over the transposed graph, so every rank is written by
+ * exactly one thread and no atomics are needed. Stops when the L1 change of
+ * an iteration drops below the tolerance.
+ *
+ * update(): after a few arcs changed, start from the old ranks and only push
+ * the difference (residual) they cause. Pushing the residual of v adds it to
+ * rank[v] and hands d * residual / outDegree(v) to each out-neighbor; vertices
+ * whose residual stays below tolerance / n are left alone. A dangling vertex
+ * would touch every vertex, so its share is collected in one scalar.
+ * When that scalar matters, or the pushes cost more than one full iteration
+ * because the change spread far, the remaining error is removed with pull
+ * iterations, which start close to the answer and converge in a few rounds.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class PageRank {
+	private CsrGraph graph;
+	// Transpose of graph, built when the pull iterations first need it.
+	private CsrGraph incoming;
+	private final double damping;
+	private final double tolerance;
+	private double[] rank;
+	private int iterations;
+
+	public PageRank(CsrGraph graph, double damping, double tolerance) {
+		if (!graph.isDirected()) {
+			throw new IllegalArgumentException("PageRank expects a directed graph");
+		}
+		this.graph = graph;
+		this.damping = damping;
+		this.tolerance = tolerance;
+	}
+
+	public PageRank(CsrGraph graph) {
+		this(graph, 0.85, 1e-6);
+	}
+
+	// Pull iterations of the last compute() or update(); 0 when pushes were enough.
+	public int iterations() {
+		return iterations;
+	}
+
+	public double[] ranks() {
+		return rank.clone();
+	}
+
+	public double[] compute() {
+		int n = graph.vertexCount();
+		rank = new double[n];
+		Arrays.fill(rank, 1.0 / n);
+		iterations = iterate(rank, Integer.MAX_VALUE);
+		return rank.clone();
+	}
+
+	// Pull iterations on x until converged or maxIterations; returns the count.
+	private int iterate(double[] x, int maxIterations) {
+		if (incoming == null) {
+			incoming = graph.transpose();
+		}
+		int n = graph.vertexCount();
+		int[] offsets = graph.offsets;
+		int[] inOffsets = incoming.offsets;
+		int[] sources = incoming.targets;
+		double[] contribution = new double[n];
+		double[] next = new double[n];
+		int count = 0;
+		while (count < maxIterations) {
+			count++;
+			IntStream.range(0, n).parallel().forEach(u -> {
+				int degree = offsets[u + 1] - offsets[u];
+				contribution[u] = degree == 0 ? 0 : x[u] / degree;
+			});
+			double dangling = IntStream.range(0, n).parallel()
+				.filter(u -> offsets[u + 1] == offsets[u])
+				.mapToDouble(u -> x[u]).sum();
+			double base = (1 - damping) / n + damping * dangling / n;
+			double error = IntStream.range(0, n).parallel().mapToDouble(v -> {
+				double sum = 0;
+				for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+					sum += contribution[sources[i]];
+				}
+				next[v] = base + damping * sum;
+				return Math.abs(next[v] - x[v]);
+			}).sum();
+			System.arraycopy(next, 0, x, 0, n);
+			if (error < tolerance) {
+				break;
+			}
+		}
+		return count;
+	}
+
+	/* Bring the ranks up to date with updated, which has the same vertices as
+	 * the current graph and differs only in the out-arcs of changedSources.
+	 * compute() must have run before.
+	 */
+	public double[] update(CsrGraph updated, int[] changedSources) {
+		if (rank == null) {
+			throw new IllegalStateException("compute() has not run yet");
+		}
+		int n = graph.vertexCount();
+		if (updated.vertexCount() != n) {
+			throw new IllegalArgumentException("Updated graph has a different number of vertices");
+		}
+		double[] residual = new double[n];
+		// Residual shared by every vertex, from dangling vertices.
+		double uniform = 0;
+		// Vertices whose residual was touched, each listed once.
+		int[] touched = new int[64];
+		int touchedCount = 0;
+		boolean[] queued = new boolean[n];
+		int[] sources = changedSources.clone();
+		Arrays.sort(sources);
+		for (int k = 0; k < sources.length; k++) {
+			int u = sources[k];
+			if (k > 0 && u == sources[k - 1]) {
+				continue;
+			}
+			for (int pass = 0; pass < 2; pass++) {
+				// Take back the old contributions of u, then hand out the new ones.
+				CsrGraph g = pass == 0 ? graph : updated;
+				double sign = pass == 0 ? -1 : 1;
+				int degree = g.degree(u);
+				if (degree == 0) {
+					uniform += sign * damping * rank[u] / n;
+					continue;
+				}
+				for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+					int w = g.targets[i];
+					residual[w] += sign * damping * rank[u] / degree;
+					if (!queued[w]) {
+						queued[w] = true;
+						if (touchedCount == touched.length) {
+							touched = Arrays.copyOf(touched, touchedCount * 2);
+						}
+						touched[touchedCount++] = w;
+					}
+				}
+			}
+		}
+		graph = updated;
+		incoming = null;
+
+		double epsilon = tolerance / n;
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		// Worklist of vertices with a large residual.
+		int[] queue = new int[Math.max(64, touchedCount)];
+		int head = 0, size = 0;
+		for (int i = 0; i < touchedCount; i++) {
+			int w = touched[i];
+			if (Math.abs(residual[w]) > epsilon) {
+				queue[size++] = w;
+			}
+			else {
+				queued[w] = false;
+			}
+		}
+
+		// Pushing is only worth it while it costs less than a full iteration.
+		long budget = graph.arcCount();
+		while (size > 0 && budget > 0) {
+			int v = queue[head];
+			head = (head + 1) % queue.length;
+			size--;
+			queued[v] = false;
+			double delta = residual[v];
+			residual[v] = 0;
+			rank[v] += delta;
+			int degree = offsets[v + 1] - offsets[v];
+			budget -= degree + 1;
+			if (degree == 0) {
+				uniform += damping * delta / n;
+				continue;
+			}
+			double share = damping * delta / degree;
+			for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+				int w = targets[i];
+				residual[w] += share;
+				if (!queued[w] && Math.abs(residual[w]) > epsilon) {
+					queued[w] = true;
+					if (size == queue.length) {
+						queue = grow(queue, head, size);
+						head = 0;
+					}
+					queue[(head + size++) % queue.length] = w;
+				}
+			}
+		}
+		// The change reached too much of the graph, or the dangling share
+		// matters: finish with pull iterations starting from the pushed ranks.
+		iterations = 0;
+		if (size > 0 || Math.abs(uniform) * n >= tolerance) {
+			iterations = iterate(rank, Integer.MAX_VALUE);
+		}
+		return rank.clone();
+	}
+
+	private static int[] grow(int[] queue, int head, int size) {
+		int[] bigger = new int[queue.length * 2];
+		for (int i = 0; i < size; i++) {
+			bigger[i] = queue[(head + i) % queue.length];
+		}
+		return bigger;
+	}
+
+	// Usage: java graphs.PageRank [vertices] [out degree] [changed arcs]
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int changes = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		Random rm = new Random(17);
+		int m = n * degree;
+		int[] src = new int[m + changes];
+		int[] dst = new int[m + changes];
+		for (int i = 0; i < m; i++) {
+			// Skewed targets so that ranks differ.
+			src[i] = rm.nextInt(n);
+			dst[i] = (int) (n * Math.pow(rm.nextDouble(), 3));
+		}
+		CsrGraph g = CsrGraph.fromEdges(n, src, dst, null, m, true);
+
+		PageRank pageRank = new PageRank(g);
+		long start = System.currentTimeMillis();
+		pageRank.compute();
+		System.out.println("Full computation: " + pageRank.iterations() + " iterations, "
+			+ (System.currentTimeMillis() - start) + " ms");
+
+		int[] changed = new int[changes];
+		for (int i = 0; i < changes; i++) {
+			src[m + i] = rm.nextInt(n);
+			dst[m + i] = rm.nextInt(n);
+			changed[i] = src[m + i];
+		}
+		CsrGraph updated = CsrGraph.fromEdges(n, src, dst, null, m + changes, true);
+		start = System.currentTimeMillis();
+		double[] incremental = pageRank.update(updated, changed);
+		long incrementalTime = System.currentTimeMillis() - start;
+		int pullIterations = pageRank.iterations();
+
+		PageRank fresh = new PageRank(updated);
+		start = System.currentTimeMillis();
+		double[] full = fresh.compute();
+		long fullTime = System.currentTimeMillis() - start;
+		double difference = 0;
+		for (int v = 0; v < n; v++) {
+			difference += Math.abs(full[v] - incremental[v]);
+		}
+		System.out.println(changes + " new arcs: incremental " + incrementalTime + " ms ("
+			+ pullIterations + " pull iterations), full rerun "
+			+ fullTime + " ms, L1 difference " + difference);
+	}
+}
@@ -0,0 +1,280 @@
+/* Direction-optimizing parallel breadth first search.
+ * Paper: Beamer, Asanovic, Patterson - "Direction-Optimizing Breadth-First Search"
+ *
+ * Level-synchronous BFS over a CsrGraph returning the hop distance of every
+ * vertex from the source, -1 when it cannot be reached.
+ * While the frontier is small it is expanded top-down from a queue: every
+ * frontier vertex claims its unvisited neighbors. Once the arcs leaving the
+ * frontier outnumber the arcs still unexplored / ALPHA, the search switches
+ * to bottom-up: every unvisited vertex scans its incoming arcs for a parent
+ * in a bitmap of the frontier and stops at the first hit. It switches back
+ * when the frontier shrinks below n / BETA vertices.
+ * Each step is cut into chunks which run on the common ForkJoinPool.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+public class ParallelBFS {
+	// Tuning constants from the paper.
+	private static final int ALPHA = 15;
+	private static final int BETA = 18;
+	// Below this many items a step is not worth splitting.
+	private static final int GRAIN = 1 << 11;
+
+	private final CsrGraph graph;
+	private final CsrGraph incoming;
+
+	public ParallelBFS(CsrGraph graph) {
+		this.graph = graph;
+		this.incoming = graph.transpose();
+	}
+
+	// Next frontier of a top-down step and the arcs leaving it.
+	private static final class Frontier {
+		final int[] vertices;
+		final long scout;
+
+		Frontier(int[] vertices, long scout) {
+			this.vertices = vertices;
+			this.scout = scout;
+		}
+	}
+
+	public static int[] bfs(CsrGraph graph, int source) {
+		return new ParallelBFS(graph).distances(source);
+	}
+
+	public int[] distances(int source) {
+		int n = graph.vertexCount();
+		int words = (n + 63) >>> 6;
+		int[] dist = new int[n];
+		Arrays.fill(dist, -1);
+		AtomicLongArray visited = new AtomicLongArray(words);
+		dist[source] = 0;
+		visited.set(source >>> 6, 1L << source);
+
+		int[] queue = { source };
+		long scout = graph.degree(source);
+		long edgesToCheck = graph.arcCount();
+		int level = 0;
+		while (queue.length > 0) {
+			if (scout > edgesToCheck / ALPHA) {
+				long[] frontier = toBitmap(queue, words);
+				long awake = queue.length, oldAwake;
+				do {
+					oldAwake = awake;
+					long[] next = new long[words];
+					awake = bottomUpStep(frontier, next, visited, dist, level);
+					frontier = next;
+					level++;
+				} while (awake >= oldAwake || awake > n / BETA);
+				queue = toQueue(frontier, n);
+				scout = 1;
+			}
+			else {
+				edgesToCheck -= scout;
+				Frontier next = topDownStep(queue, visited, dist, level);
+				queue = next.vertices;
+				scout = next.scout;
+				level++;
+			}
+		}
+		return dist;
+	}
+
+	static int chunks(int items) {
+		int threads = ForkJoinPool.getCommonPoolParallelism();
+		return Math.max(1, Math.min(items / GRAIN, threads * 8));
+	}
+
+	// Every frontier vertex claims its unvisited neighbors with a CAS on the
+	// visited bitmap; the winner sets the distance and queues the vertex.
+	private Frontier topDownStep(int[] queue, AtomicLongArray visited, int[] dist, int level) {
+		int parts = chunks(queue.length);
+		int[][] found = new int[parts][];
+		int[] sizes = new int[parts];
+		long[] scouts = new long[parts];
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+
+		IntStream.range(0, parts).parallel().forEach(p -> {
+			int from = (int) ((long) queue.length * p / parts);
+			int to = (int) ((long) queue.length * (p + 1) / parts);
+			int[] local = new int[Math.max(16, to - from)];
+			int size = 0;
+			long arcs = 0;
+			for (int q = from; q < to; q++) {
+				int u = queue[q];
+				for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+					int v = targets[i];
+					int word = v >>> 6;
+					long bit = 1L << v;
+					long seen = visited.get(word);
+					while ((seen & bit) == 0) {
+						if (visited.compareAndSet(word, seen, seen | bit)) {
+							dist[v] = level + 1;
+							if (size == local.length) {
+								local = Arrays.copyOf(local, size * 2);
+							}
+							local[size++] = v;
+							arcs += offsets[v + 1] - offsets[v];
+							break;
+						}
+						seen = visited.get(word);
+					}
+				}
+			}
+			found[p] = local;
+			sizes[p] = size;
+			scouts[p] = arcs;
+		});
+
+		int total = 0;
+		long scout = 0;
+		for (int p = 0; p < parts; p++) {
+			total += sizes[p];
+			scout += scouts[p];
+		}
+		int[] next = new int[total];
+		int at = 0;
+		for (int p = 0; p < parts; p++) {
+			System.arraycopy(found[p], 0, next, at, sizes[p]);
+			at += sizes[p];
+		}
+		return new Frontier(next, scout);
+	}
+
+	// Every unvisited vertex looks for a parent in the frontier bitmap.
+	// Chunks own whole 64-bit words, so no word is written by two threads.
+	private long bottomUpStep(long[] frontier, long[] next, AtomicLongArray visited, int[] dist, int level) {
+		int n = graph.vertexCount();
+		int words = next.length;
+		int parts = chunks(n);
+		int[] offsets = incoming.offsets;
+		int[] sources = incoming.targets;
+
+		return IntStream.range(0, parts).parallel().mapToLong(p -> {
+			int fromWord = (int) ((long) words * p / parts);
+			int toWord = (int) ((long) words * (p + 1) / parts);
+			long awake = 0;
+			for (int w = fromWord; w < toWord; w++) {
+				long seen = visited.get(w);
+				long added = 0;
+				int end = Math.min(64, n - (w << 6));
+				for (int b = 0; b < end; b++) {
+					if ((seen & (1L << b)) != 0) {
+						continue;
+					}
+					int v = (w << 6) + b;
+					for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+						int u = sources[i];
+						if ((frontier[u >>> 6] & (1L << u)) != 0) {
+							dist[v] = level + 1;
+							added |= 1L << b;
+							awake++;
+							break;
+						}
+					}
+				}
+				if (added != 0) {
+					visited.set(w, seen | added);
+				}
+				next[w] = added;
+			}
+			return awake;
+		}).sum();
+	}
+
+	private static long[] toBitmap(int[] queue, int words) {
+		long[] bitmap = new long[words];
+		for (int v : queue) {
+			bitmap[v >>> 6] |= 1L << v;
+		}
+		return bitmap;
+	}
+
+	private static int[] toQueue(long[] bitmap, int n) {
+		int words = bitmap.length;
+		int parts = chunks(n);
+		int[] counts = new int[parts + 1];
+		IntStream.range(0, parts).parallel().forEach(p -> {
+			int c = 0;
+			for (int w = (int) ((long) words * p / parts); w < (int) ((long) words * (p + 1) / parts); w++) {
+				c += Long.bitCount(bitmap[w]);
+			}
+			counts[p + 1] = c;
+		});
+		for (int p = 0; p < parts; p++) {
+			counts[p + 1] += counts[p];
+		}
+		int[] queue = new int[counts[parts]];
+		IntStream.range(0, parts).parallel().forEach(p -> {
+			int at = counts[p];
+			for (int w = (int) ((long) words * p / parts); w < (int) ((long) words * (p + 1) / parts); w++) {
+				long bits = bitmap[w];
+				while (bits != 0) {
+					queue[at++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+				}
+			}
+		});
+		return queue;
+	}
+
+	// Plain queue based BFS used to check the parallel version.
+	static int[] serialBFS(CsrGraph g, int source) {
+		int[] dist = new int[g.vertexCount()];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[g.vertexCount()];
+		int head = 0, tail = 0;
+		queue[tail++] = source;
+		dist[source] = 0;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+				int v = g.targets[i];
+				if (dist[v] == -1) {
+					dist[v] = dist[u] + 1;
+					queue[tail++] = v;
+				}
+			}
+		}
+		return dist;
+	}
+
+	// Random undirected graph with n vertices and n * degree / 2 edges.
+	static CsrGraph randomGraph(int n, int degree, long seed) {
+		Random rm = new Random(seed);
+		int m = (int) Math.min((long) n * degree / 2, Integer.MAX_VALUE / 2 - 8);
+		int[] src = new int[m];
+		int[] dst = new int[m];
+		for (int i = 0; i < m; i++) {
+			src[i] = rm.nextInt(n);
+			dst[i] = rm.nextInt(n);
+		}
+		return CsrGraph.fromEdges(n, src, dst, null, m, false);
+	}
+
+	// Usage: java graphs.ParallelBFS [vertices] [average degree]
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+		int degree = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		CsrGraph g = randomGraph(n, degree, 42);
+		ParallelBFS search = new ParallelBFS(g);
+
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			int[] serial = serialBFS(g, 0);
+			long middle = System.nanoTime();
+			int[] parallel = search.distances(0);
+			long end = System.nanoTime();
+			System.out.println("serial: " + (middle - start) / 1000000 + " ms, direction-optimizing: "
+				+ (end - middle) / 1000000 + " ms, same result: " + Arrays.equals(serial, parallel));
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/* Strongly connected components of a directed CsrGraph (Tarjan) without recursion.
+ *
+ * Tarjan's DFS numbers the vertices in discovery order and keeps low[v], the
+ * smallest number reachable from the subtree of v through one back or cross
+ * arc into a vertex still on the component stack. When low[v] == index[v]
+ * after all arcs of v are done, v is the root of a component and everything
+ * above it on the component stack belongs to it.
+ * The recursion is replaced by an explicit call stack plus the next arc to
+ * try for every vertex on it, so graphs with tens of millions of vertices in
+ * one long path work the same as small ones.
+ *
+ * Tarjan completes components in reverse topological order; ids are flipped
+ * so that every arc of the condensation goes from a lower to a higher id.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+
+public class StronglyConnectedComponents {
+	final int[] component;
+	final int count;
+
+	private StronglyConnectedComponents(int[] component, int count) {
+		this.component = component;
+		this.count = count;
+	}
+
+	public static StronglyConnectedComponents find(CsrGraph graph) {
+		int n = graph.vertexCount();
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		int[] index = new int[n];
+		int[] low = new int[n];
+		// -1 while unassigned; a numbered vertex without a component is on the stack.
+		int[] component = new int[n];
+		int[] nextArc = new int[n];
+		int[] callStack = new int[n];
+		int[] stack = new int[n];
+		Arrays.fill(index, -1);
+		Arrays.fill(component, -1);
+		int counter = 0, count = 0, stackTop = 0;
+
+		for (int root = 0; root < n; root++) {
+			if (index[root] != -1) {
+				continue;
+			}
+			int callTop = 0;
+			index[root] = low[root] = counter++;
+			nextArc[root] = offsets[root];
+			stack[stackTop++] = root;
+			callStack[callTop++] = root;
+
+			while (callTop > 0) {
+				int u = callStack[callTop - 1];
+				if (nextArc[u] < offsets[u + 1]) {
+					int v = targets[nextArc[u]++];
+					if (index[v] == -1) {
+						index[v] = low[v] = counter++;
+						nextArc[v] = offsets[v];
+						stack[stackTop++] = v;
+						callStack[callTop++] = v;
+					}
+					else if (component[v] == -1 && index[v] < low[u]) {
+						low[u] = index[v];
+					}
+					continue;
+				}
+				// u is done: return to its caller.
+				callTop--;
+				if (low[u] == index[u]) {
+					int w;
+					do {
+						w = stack[--stackTop];
+						component[w] = count;
+					} while (w != u);
+					count++;
+				}
+				if (callTop > 0) {
+					int caller = callStack[callTop - 1];
+					if (low[u] < low[caller]) {
+						low[caller] = low[u];
+					}
+				}
+			}
+		}
+
+		for (int v = 0; v < n; v++) {
+			component[v] = count - 1 - component[v];
+		}
+		return new StronglyConnectedComponents(component, count);
+	}
+
+	public int count() {
+		return count;
+	}
+
+	public int componentOf(int v) {
+		return component[v];
+	}
+
+	public int[] componentIds() {
+		return component;
+	}
+
+	public int[] componentSizes() {
+		int[] sizes = new int[count];
+		for (int c : component) {
+			sizes[c]++;
+		}
+		return sizes;
+	}
+
+	/* Directed acyclic graph with one vertex per component and one arc for
+	 * every pair of components joined by at least one arc. Component ids are
+	 * already a topological order of it.
+	 */
+	public CsrGraph condensation(CsrGraph graph) {
+		int n = graph.vertexCount();
+		long[] pairs = new long[graph.arcCount()];
+		int size = 0;
+		for (int u = 0; u < n; u++) {
+			int cu = component[u];
+			for (int i = graph.offsets[u]; i < graph.offsets[u + 1]; i++) {
+				int cv = component[graph.targets[i]];
+				if (cu != cv) {
+					pairs[size++] = ((long) cu << 32) | cv;
+				}
+			}
+		}
+		Arrays.parallelSort(pairs, 0, size);
+		int unique = 0;
+		for (int i = 0; i < size; i++) {
+			if (i == 0 || pairs[i] != pairs[i - 1]) {
+				pairs[unique++] = pairs[i];
+			}
+		}
+		int[] src = new int[unique];
+		int[] dst = new int[unique];
+		for (int i = 0; i < unique; i++) {
+			src[i] = (int) (pairs[i] >>> 32);
+			dst[i] = (int) pairs[i];
+		}
+		return CsrGraph.fromEdges(count, src, dst, null, unique, true);
+	}
+
+	// Usage: java graphs.StronglyConnectedComponents [vertices] [arcs]
+	public static void main(String[] args) {
+		/* 1 -> 2 -> 3 -> 1 form one component, 4 <-> 5 another, 6 is alone.
+		 * 3 -> 4, 5 -> 6
+		 */
+		Graph g = new Graph(6);
+		int[][] arcs = {{1, 2}, {2, 3}, {3, 1}, {3, 4}, {4, 5}, {5, 4}, {5, 6}};
+		for (int[] arc : arcs) {
+			g.addDirectedEdge(arc[0], arc[1]);
+		}
+		CsrGraph small = CsrGraph.fromGraph(g);
+		StronglyConnectedComponents scc = find(small);
+		System.out.println("Components (vertex 0 is unused): " + Arrays.toString(scc.componentIds()));
+		CsrGraph dag = scc.condensation(small);
+		for (int c = 0; c < dag.vertexCount(); c++) {
+			for (int i = dag.firstArc(c); i < dag.endArc(c); i++) {
+				System.out.println("component " + c + " -> component " + dag.target(i));
+			}
+		}
+
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		int m = args.length > 1 ? Integer.parseInt(args[1]) : 20000000;
+		// A long cycle through all vertices plus random arcs.
+		Random rm = new Random(9);
+		int[] src = new int[m];
+		int[] dst = new int[m];
+		for (int i = 0; i < m; i++) {
+			src[i] = i < n ? i : rm.nextInt(n);
+			dst[i] = i < n ? (i + 1) % n : rm.nextInt(n);
+		}
+		long start = System.currentTimeMillis();
+		StronglyConnectedComponents big = find(CsrGraph.fromEdges(n, src, dst, null, m, true));
+		System.out.println(n + " vertices: " + big.count() + " components in "
+			+ (System.currentTimeMillis() - start) + " ms");
+	}
+}
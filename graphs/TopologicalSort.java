@@ -0,0 +1,251 @@
+/* Topological sort of a directed CsrGraph with Kahn's algorithm.
+ * An arc u -> v means u has to come before v.
+ *
+ * The vertices with in-degree 0 form level 0. Removing them lowers the
+ * in-degree of their successors, and the vertices reaching 0 form level 1,
+ * and so on. The concatenated levels are a topological order, and no two
+ * vertices of one level depend on each other, so a level is a batch of jobs
+ * which can run in parallel.
+ * If some vertices never reach in-degree 0 the graph has a cycle; one such
+ * cycle is reported by walking backwards over the leftover vertices.
+ *
+ * execute() runs a task per vertex on an ExecutorService and starts every
+ * task as soon as all of its predecessors have finished, instead of waiting
+ * for whole levels.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+public class TopologicalSort {
+	private final CsrGraph graph;
+	// Vertices in topological order, only the sorted prefix when there is a cycle.
+	private final int[] order;
+	private final int sorted;
+	// Level i is order[levelStart[i]] .. order[levelStart[i+1]-1].
+	private final int[] levelStart;
+	private final int[] cycle;
+
+	public TopologicalSort(CsrGraph graph) {
+		if (!graph.isDirected()) {
+			throw new IllegalArgumentException("Topological order needs a directed graph");
+		}
+		int n = graph.vertexCount();
+		this.graph = graph;
+		int[] inDegree = inDegrees(graph);
+		order = new int[n];
+		int tail = 0;
+		for (int v = 0; v < n; v++) {
+			if (inDegree[v] == 0) {
+				order[tail++] = v;
+			}
+		}
+
+		int[] starts = new int[16];
+		int levels = 0;
+		int head = 0;
+		while (head < tail) {
+			if (levels + 1 >= starts.length) {
+				starts = Arrays.copyOf(starts, starts.length * 2);
+			}
+			starts[levels++] = head;
+			int levelEnd = tail;
+			for (; head < levelEnd; head++) {
+				int u = order[head];
+				for (int i = graph.offsets[u]; i < graph.offsets[u + 1]; i++) {
+					int v = graph.targets[i];
+					if (--inDegree[v] == 0) {
+						order[tail++] = v;
+					}
+				}
+			}
+		}
+		starts[levels] = tail;
+		levelStart = Arrays.copyOf(starts, levels + 1);
+		sorted = tail;
+		cycle = sorted == n ? null : findCycle(inDegree);
+	}
+
+	private static int[] inDegrees(CsrGraph graph) {
+		int[] inDegree = new int[graph.vertexCount()];
+		for (int v : graph.targets) {
+			inDegree[v]++;
+		}
+		return inDegree;
+	}
+
+	/* Every vertex left with in-degree > 0 has a predecessor which is also
+	 * left over, so walking to such a predecessor never gets stuck and must
+	 * come back to a vertex it has seen: that stretch of the walk is a cycle.
+	 */
+	private int[] findCycle(int[] inDegree) {
+		CsrGraph incoming = graph.transpose();
+		int n = graph.vertexCount();
+		int start = 0;
+		while (inDegree[start] == 0) {
+			start++;
+		}
+		// Step at which a vertex was reached, -1 if not on the walk.
+		int[] step = new int[n];
+		Arrays.fill(step, -1);
+		int[] walk = new int[16];
+		int length = 0;
+		int v = start;
+		while (step[v] == -1) {
+			if (length == walk.length) {
+				walk = Arrays.copyOf(walk, length * 2);
+			}
+			step[v] = length;
+			walk[length++] = v;
+			int next = -1;
+			for (int i = incoming.offsets[v]; i < incoming.offsets[v + 1]; i++) {
+				if (inDegree[incoming.targets[i]] > 0) {
+					next = incoming.targets[i];
+					break;
+				}
+			}
+			v = next;
+		}
+		// The walk went backwards, so reverse it to follow the arcs.
+		int[] found = new int[length - step[v]];
+		for (int i = 0; i < found.length; i++) {
+			found[i] = walk[length - 1 - i];
+		}
+		return found;
+	}
+
+	public boolean hasCycle() {
+		return cycle != null;
+	}
+
+	// Vertices of one cycle in arc order, or null for a DAG.
+	public int[] cycle() {
+		return cycle;
+	}
+
+	// Topological order, or null when there is a cycle.
+	public int[] order() {
+		return cycle == null ? order.clone() : null;
+	}
+
+	public int levelCount() {
+		return levelStart.length - 1;
+	}
+
+	// Vertices of level i; none of them depends on another one of the level.
+	public int[] level(int i) {
+		return Arrays.copyOfRange(order, levelStart[i], levelStart[i + 1]);
+	}
+
+	/* Run task(v) for every vertex on pool, each one after all of its
+	 * predecessors have completed. The first exception thrown by a task, or
+	 * the RejectedExecutionException of a submission the pool refused,
+	 * stops any further scheduling and is rethrown as ExecutionException
+	 * right away; tasks already running are not waited for.
+	 */
+	public void execute(IntConsumer task, ExecutorService pool) throws InterruptedException, ExecutionException {
+		if (cycle != null) {
+			throw new IllegalStateException("Graph has a cycle through vertex " + cycle[0]);
+		}
+		int n = graph.vertexCount();
+		if (n == 0) {
+			return;
+		}
+		AtomicIntegerArray waiting = new AtomicIntegerArray(inDegrees(graph));
+		AtomicInteger remaining = new AtomicInteger(n);
+		// Completed by the last task, or exceptionally by the first failure.
+		CompletableFuture<Void> finished = new CompletableFuture<Void>();
+		for (int v = 0; v < n && !finished.isDone(); v++) {
+			if (waiting.get(v) == 0) {
+				submit(v, task, pool, waiting, remaining, finished);
+			}
+		}
+		finished.get();
+	}
+
+	private void submit(int v, IntConsumer task, ExecutorService pool, AtomicIntegerArray waiting,
+			AtomicInteger remaining, CompletableFuture<Void> finished) {
+		try {
+			pool.execute(() -> {
+				if (finished.isDone()) {
+					return;
+				}
+				try {
+					task.accept(v);
+				}
+				catch (Throwable t) {
+					finished.completeExceptionally(t);
+					return;
+				}
+				for (int i = graph.offsets[v]; i < graph.offsets[v + 1]; i++) {
+					int w = graph.targets[i];
+					if (waiting.decrementAndGet(w) == 0) {
+						submit(w, task, pool, waiting, remaining, finished);
+					}
+				}
+				if (remaining.decrementAndGet() == 0) {
+					finished.complete(null);
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			finished.completeExceptionally(e);
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		/* Build jobs:
+		 * 0 -> 2, 1 -> 2, 2 -> 3, 2 -> 4, 3 -> 5, 4 -> 5
+		 */
+		int[] src = {0, 1, 2, 2, 3, 4};
+		int[] dst = {2, 2, 3, 4, 5, 5};
+		TopologicalSort sort = new TopologicalSort(CsrGraph.fromEdges(6, src, dst, null, 6, true));
+		System.out.println("Order: " + Arrays.toString(sort.order()));
+		for (int i = 0; i < sort.levelCount(); i++) {
+			System.out.println("Level " + i + ": " + Arrays.toString(sort.level(i)));
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			sort.execute(v -> System.out.println("running job " + v + " on "
+				+ Thread.currentThread().getName()), pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		// One thread and room for one queued job: once 0 finishes, 1 is queued
+		// and 2 is refused, which fails the run instead of hanging it.
+		ThreadPoolExecutor small = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<Runnable>(1));
+		int[] fanOut = {0, 0, 0};
+		int[] jobs = {1, 2, 3};
+		try {
+			new TopologicalSort(CsrGraph.fromEdges(4, fanOut, jobs, null, 3, true)).execute(v -> { }, small);
+			System.out.println("Bounded pool: all jobs ran");
+		}
+		catch (ExecutionException e) {
+			System.out.println("Bounded pool: failed with " + e.getCause().getClass().getSimpleName());
+		}
+		finally {
+			small.shutdown();
+		}
+
+		// 0 -> 1 -> 2 -> 3 -> 1 has a cycle through 1, 2 and 3.
+		int[] a = {0, 1, 2, 3};
+		int[] b = {1, 2, 3, 1};
+		TopologicalSort cyclic = new TopologicalSort(CsrGraph.fromEdges(4, a, b, null, 4, true));
+		System.out.println("Cycle: " + Arrays.toString(cyclic.cycle()));
+	}
+}
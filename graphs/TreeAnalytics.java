@@ -0,0 +1,203 @@
+/* Diameter, center, eccentricities and subtree sizes of a tree.
+ * The tree is an undirected CsrGraph with n - 1 edges, optionally weighted.
+ *
+ * Same idea as the double DFS in problem_solving.Graph: the vertex farthest
+ * from any vertex is one end a of a diameter, and the vertex farthest from a
+ * is the other end b. The eccentricity of every vertex is then
+ * max(dist(a, v), dist(b, v)), so three traversals answer all of them.
+ * The center is the vertex (or two vertices) on the a-b path minimizing it.
+ *
+ * Traversals are BFS over a reused int[] queue. In a tree the BFS order has
+ * every parent before its children, so distances follow the tree path
+ * whatever the weights are, and walking the order backwards adds up subtree
+ * sizes. No recursion and nothing allocated per vertex.
+ */
+
+package graphs;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TreeAnalytics {
+	private final CsrGraph tree;
+	// BFS order and parents of the last traversal.
+	private final int[] order;
+	private final int[] parent;
+	private final long[] fromA;
+	private final long[] fromB;
+	private final int endA;
+	private final int endB;
+	private final int[] center;
+
+	public TreeAnalytics(CsrGraph tree) {
+		int n = tree.vertexCount();
+		if (tree.isDirected() || tree.arcCount() != 2L * (n - 1)) {
+			throw new IllegalArgumentException("Expected an undirected tree with " + (n - 1) + " edges");
+		}
+		this.tree = tree;
+		order = new int[n];
+		parent = new int[n];
+		fromA = new long[n];
+		fromB = new long[n];
+
+		endA = traverse(0, fromB);
+		endB = traverse(endA, fromA);
+		traverse(endB, fromB);
+		center = findCenter();
+	}
+
+	/* BFS from root filling order[], parent[] and dist[] (skipped when null).
+	 * Returns the vertex farthest from root. The arc count alone does not make
+	 * a tree: a cycle plus an isolated vertex, or a self loop, has as many
+	 * arcs, and would reach a vertex twice.
+	 */
+	private int traverse(int root, long[] dist) {
+		int[] offsets = tree.offsets;
+		int[] targets = tree.targets;
+		int[] weights = tree.weights;
+		boolean[] seen = new boolean[order.length];
+		int head = 0, tail = 0;
+		seen[root] = true;
+		order[tail++] = root;
+		parent[root] = -1;
+		int farthest = root;
+		if (dist != null) {
+			dist[root] = 0;
+		}
+		while (head < tail) {
+			int u = order[head++];
+			if (dist != null && dist[u] > dist[farthest]) {
+				farthest = u;
+			}
+			for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+				int v = targets[i];
+				if (v != parent[u]) {
+					if (seen[v]) {
+						throw new IllegalArgumentException("not a tree");
+					}
+					seen[v] = true;
+					parent[v] = u;
+					if (dist != null) {
+						dist[v] = dist[u] + (weights == null ? 1 : weights[i]);
+					}
+					order[tail++] = v;
+				}
+			}
+		}
+		if (tail != tree.vertexCount()) {
+			throw new IllegalArgumentException("Tree is not connected");
+		}
+		return farthest;
+	}
+
+	public long diameter() {
+		return fromA[endB];
+	}
+
+	public int[] diameterEndpoints() {
+		return new int[] { endA, endB };
+	}
+
+	public long eccentricity(int v) {
+		return Math.max(fromA[v], fromB[v]);
+	}
+
+	public long[] eccentricities() {
+		long[] ecc = new long[tree.vertexCount()];
+		for (int v = 0; v < ecc.length; v++) {
+			ecc[v] = Math.max(fromA[v], fromB[v]);
+		}
+		return ecc;
+	}
+
+	// Vertices of minimum eccentricity; one or two neighbors on the diameter path.
+	public int[] center() {
+		return center.clone();
+	}
+
+	private int[] findCenter() {
+		// Right after the traversal from endB, parent[] leads from endA back to endB.
+		long best = Long.MAX_VALUE;
+		int first = -1, second = -1;
+		for (int v = endA; v != -1; v = parent[v]) {
+			long e = eccentricity(v);
+			if (e < best) {
+				best = e;
+				first = v;
+				second = -1;
+			}
+			else if (e == best) {
+				second = v;
+			}
+		}
+		return second == -1 ? new int[] { first } : new int[] { first, second };
+	}
+
+	// Number of vertices in the subtree of every vertex when rooted at root.
+	public int[] subtreeSizes(int root) {
+		int n = tree.vertexCount();
+		traverse(root, null);
+		int[] size = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			int v = order[i];
+			size[v]++;
+			if (parent[v] != -1) {
+				size[parent[v]] += size[v];
+			}
+		}
+		return size;
+	}
+
+	// Random tree: every vertex hangs under one of the vertices before it.
+	static CsrGraph randomTree(int n, long seed) {
+		Random rm = new Random(seed);
+		int[] src = new int[n - 1];
+		int[] dst = new int[n - 1];
+		for (int v = 1; v < n; v++) {
+			src[v - 1] = v;
+			// Mostly the previous vertex, to get long paths.
+			dst[v - 1] = rm.nextInt(4) == 0 ? rm.nextInt(v) : v - 1;
+		}
+		return CsrGraph.fromEdges(n, src, dst, null, n - 1, false);
+	}
+
+	// Usage: java graphs.TreeAnalytics [vertices]
+	public static void main(String[] args) {
+		/*        0
+		 *       / \
+		 *      1   2
+		 *     / \
+		 *    3   4
+		 *    |
+		 *    5
+		 */
+		int[] a = {0, 0, 1, 1, 3};
+		int[] b = {1, 2, 3, 4, 5};
+		TreeAnalytics small = new TreeAnalytics(CsrGraph.fromEdges(6, a, b, null, 5, false));
+		System.out.println("Diameter: " + small.diameter() + " between "
+			+ Arrays.toString(small.diameterEndpoints()));
+		System.out.println("Center: " + Arrays.toString(small.center()));
+		System.out.println("Eccentricities: " + Arrays.toString(small.eccentricities()));
+		System.out.println("Subtree sizes from 0: " + Arrays.toString(small.subtreeSizes(0)));
+
+		// Five edges, but a triangle 0 1 2 and vertex 5 cut off.
+		int[] c = {0, 1, 2, 3, 4};
+		int[] d = {1, 2, 0, 4, 3};
+		try {
+			new TreeAnalytics(CsrGraph.fromEdges(6, c, d, null, 5, false));
+		}
+		catch (IllegalArgumentException e) {
+			System.out.println("Triangle rejected: " + e.getMessage());
+		}
+
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+		CsrGraph big = randomTree(n, 1);
+		long start = System.currentTimeMillis();
+		TreeAnalytics analytics = new TreeAnalytics(big);
+		long[] ecc = analytics.eccentricities();
+		int[] sizes = analytics.subtreeSizes(0);
+		System.out.println(n + " vertices: diameter " + analytics.diameter() + ", center "
+			+ Arrays.toString(analytics.center()) + ", eccentricity of 0: " + ecc[0]
+			+ ", root subtree " + sizes[0] + ", in "
+			+ (System.currentTimeMillis() - start) + " ms");
+	}
+}
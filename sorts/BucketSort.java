@@ -1,4 +1,6 @@
-import java.util.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Scanner;
 
 /*
 1) Create n empty buckets (Or lists).
@@ -6,43 +8,175 @@ import java.util.*;
 .......a) Insert arr[i] into bucket[n*array[i]]
 3) Sort individual buckets using insertion sort.
 4) Concatenate all sorted buckets.
+
+The buckets are not lists: one counting pass gives the size of every
+bucket, a prefix sum turns the sizes into offsets into a single output
+array, and a second pass drops every element at the offset of its bucket.
+Nothing is boxed and there is one allocation per array instead of one per
+bucket. Buckets are then sorted in place, by insertion sort when small.
+
+bucketSort(int[], n) splits the range [min, max] into n equal intervals,
+which only spreads the elements when they are spread evenly.
+bucketSort(double[]) / bucketSort(float[]) is the classic case of values
+uniform in [0, 1). For skewed ints, sampledBucketSort(int[], n) sorts a
+random sample, takes n - 1 of its quantiles as splitters and finds the
+bucket of an element by binary search, so buckets get about n / buckets
+elements whatever the distribution.
 */
 
 class BucketSort {
-	public static int[] bucketSort(int[] array, int bucketCount) {
+	private static final int INSERTION_SORT = 32;
+	private static final int SAMPLES_PER_BUCKET = 16;
 
-	if (bucketCount <= 0) throw new IllegalArgumentException("Invalid bucket count");
+	public static int[] bucketSort(int[] array, int bucketCount) {
+		if (bucketCount <= 0) throw new IllegalArgumentException("Invalid bucket count");
 		if (array.length <= 1) return array; //trivially sorted
-	int high = array[0];
+		int high = array[0];
 		int low = array[0];
 		for (int i = 1; i < array.length; i++) { //find the range of input elements
-	if (array[i] > high) high = array[i];
-	if (array[i] < low) low = array[i];
+			if (array[i] > high) high = array[i];
+			if (array[i] < low) low = array[i];
+		}
+		long range = (long) high - low + 1;
+		int[] bucket = new int[array.length];
+		for (int i = 0; i < array.length; i++) {
+			bucket[i] = (int) ((array[i] - (long) low) * bucketCount / range);
+		}
+		distribute(array, bucket, bucketCount);
+		return array;
+	}
+
+	public static int[] sampledBucketSort(int[] array, int bucketCount) {
+		if (bucketCount <= 0) throw new IllegalArgumentException("Invalid bucket count");
+		if (array.length <= 1) return array;
+		Random rm = new Random(array.length);
+		int[] sample = new int[Math.min(array.length, bucketCount * SAMPLES_PER_BUCKET)];
+		for (int i = 0; i < sample.length; i++) {
+			sample[i] = array[rm.nextInt(array.length)];
+		}
+		Arrays.sort(sample);
+		// splitter[k - 1] is the smallest value of bucket k; repeated quantiles are dropped.
+		int[] splitter = new int[bucketCount - 1];
+		int splitters = 0;
+		for (int k = 1; k < bucketCount; k++) {
+			int value = sample[(int) ((long) k * sample.length / bucketCount)];
+			if (splitters == 0 || value != splitter[splitters - 1]) {
+				splitter[splitters++] = value;
+			}
+		}
+		int[] bucket = new int[array.length];
+		for (int i = 0; i < array.length; i++) {
+			// Number of splitters <= array[i].
+			int lo = 0, hi = splitters;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (splitter[mid] <= array[i]) lo = mid + 1;
+				else hi = mid;
+			}
+			bucket[i] = lo;
+		}
+		distribute(array, bucket, splitters + 1);
+		return array;
 	}
-	double interval = ((double)(high - low + 1))/bucketCount; //range of one bucket
-	ArrayList<Integer> buckets[] = new ArrayList[bucketCount];
-	for (int i = 0; i < bucketCount; i++) { //initialize buckets
-	buckets[i] = new ArrayList();
+
+	// Move array[i] into bucket[i] (in bucket order), then sort every bucket.
+	private static void distribute(int[] array, int[] bucket, int bucketCount) {
+		int[] start = new int[bucketCount + 1];
+		for (int i = 0; i < array.length; i++) {
+			start[bucket[i] + 1]++;
+		}
+		for (int b = 0; b < bucketCount; b++) {
+			start[b + 1] += start[b];
+		}
+		int[] output = new int[array.length];
+		int[] next = Arrays.copyOf(start, bucketCount);
+		for (int i = 0; i < array.length; i++) {
+			output[next[bucket[i]]++] = array[i];
+		}
+		for (int b = 0; b < bucketCount; b++) {
+			sortBucket(output, start[b], start[b + 1]);
+		}
+		System.arraycopy(output, 0, array, 0, array.length);
 	}
-	for(int i = 0; i < array.length; i++) 
-	{ //partition the input array
-		buckets[(int)((array[i] - low)/interval)].add(array[i]);
-	}	
-		int pointer = 0;
-		for (int i = 0; i < buckets.length; i++) 
-		{
-		Collections.sort(buckets[i]); //mergeSort
-		for (int j = 0; j < buckets[i].size(); j++) 
-		{ //merge the buckets
-	    array[pointer] = buckets[i].get(j);
-		pointer++;
-		}
-	
-	   }
-	return array;	
+
+	private static void sortBucket(int[] array, int from, int to) {
+		if (to - from > INSERTION_SORT) {
+			Arrays.sort(array, from, to);
+			return;
+		}
+		for (int i = from + 1; i < to; i++) {
+			int key = array[i];
+			int j = i - 1;
+			while (j >= from && array[j] > key) {
+				array[j + 1] = array[j];
+				j--;
+			}
+			array[j + 1] = key;
+		}
 	}
+
+	// Values uniform in [0, 1): one bucket per element. Values outside
+	// [0, 1) land in the first or last bucket, still sorted, just slower;
+	// the order is the one of Arrays.sort, -0.0 before 0.0 and NaN last.
+	public static double[] bucketSort(double[] array) {
+		int n = array.length;
+		if (n <= 1) return array;
+		int[] start = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			start[bucketOf(array[i], n) + 1]++;
+		}
+		for (int b = 0; b < n; b++) {
+			start[b + 1] += start[b];
+		}
+		double[] output = new double[n];
+		int[] next = Arrays.copyOf(start, n);
+		for (int i = 0; i < n; i++) {
+			output[next[bucketOf(array[i], n)]++] = array[i];
+		}
+		for (int b = 0; b < n; b++) {
+			int from = start[b], to = start[b + 1];
+			if (to - from > INSERTION_SORT) {
+				Arrays.sort(output, from, to);
+				continue;
+			}
+			for (int i = from + 1; i < to; i++) {
+				double key = output[i];
+				int j = i - 1;
+				while (j >= from && Double.compare(output[j], key) > 0) {
+					output[j + 1] = output[j];
+					j--;
+				}
+				output[j + 1] = key;
+			}
+		}
+		System.arraycopy(output, 0, array, 0, n);
+		return array;
+	}
+
+	public static float[] bucketSort(float[] array) {
+		double[] values = new double[array.length];
+		for (int i = 0; i < array.length; i++) {
+			values[i] = array[i];
+		}
+		bucketSort(values);
+		for (int i = 0; i < array.length; i++) {
+			array[i] = (float) values[i];
+		}
+		return array;
+	}
+
+	private static int bucketOf(double value, int n) {
+		if (value < 0) return 0;
+		if (!(value < 1)) return n - 1; // 1 and above, or NaN, which sorts last
+		return (int) Math.min(n - 1, value * n);
+	}
+
 	public static void main(String[] args)
 	{
+		if (args.length > 0) {
+			benchmark(Integer.parseInt(args[0]));
+			return;
+		}
 		Scanner sc=new Scanner(System.in);
 		System.out.println("Enter the number of elements:");
 		int t=sc.nextInt();
@@ -59,6 +193,45 @@ class BucketSort {
 			System.out.println(a[i]);
 		}
 	}
+
+	// java BucketSort <size>: uniform doubles, uniform ints and skewed ints against Arrays.sort.
+	private static void benchmark(int size) {
+		Random rm = new Random(8);
+		double[] doubles = new double[size];
+		for (int i = 0; i < size; i++) {
+			doubles[i] = rm.nextDouble();
+		}
+		double[] expectedDoubles = doubles.clone();
+		long start = System.currentTimeMillis();
+		Arrays.sort(expectedDoubles);
+		long library = System.currentTimeMillis() - start;
+		start = System.currentTimeMillis();
+		bucketSort(doubles);
+		System.out.println("uniform doubles: bucket sort " + (System.currentTimeMillis() - start)
+			+ " ms, Arrays.sort " + library + " ms, equal: " + Arrays.equals(doubles, expectedDoubles));
+
+		for (int skewed = 0; skewed < 2; skewed++) {
+			int[] ints = new int[size];
+			for (int i = 0; i < size; i++) {
+				// Skewed: most values crowd near 0, a few reach 10^9.
+				ints[i] = skewed == 0 ? rm.nextInt(1000000000) : (int) (1e9 * Math.pow(rm.nextDouble(), 8));
+			}
+			int[] expected = ints.clone();
+			start = System.currentTimeMillis();
+			Arrays.sort(expected);
+			library = System.currentTimeMillis() - start;
+			int[] even = ints.clone();
+			start = System.currentTimeMillis();
+			bucketSort(even, 1024);
+			long evenTime = System.currentTimeMillis() - start;
+			start = System.currentTimeMillis();
+			sampledBucketSort(ints, 1024);
+			long sampledTime = System.currentTimeMillis() - start;
+			System.out.println((skewed == 0 ? "uniform" : "skewed") + " ints: equal-width buckets " + evenTime
+				+ " ms, sampled splitters " + sampledTime + " ms, Arrays.sort " + library + " ms, equal: "
+				+ (Arrays.equals(even, expected) && Arrays.equals(ints, expected)));
+		}
+	}
 }
 
 
@@ -70,7 +243,7 @@ class BucketSort {
 // 3
 // 1
 // 4
-// Sorted array is 
+// Sorted array is
 // 1
 // 2
 // 3
@@ -0,0 +1,161 @@
+/* Introsort: quick sort that cannot go quadratic or overflow the stack.
+ * Paper: Musser - "Introspective Sorting and Selection Algorithms"
+ *
+ * 1. Pivot: median of three (first, middle, last) for small ranges, Tukey's
+ *    ninther (median of three medians of three) for large ones, so sorted
+ *    and reverse sorted input split evenly.
+ * 2. Three-way partitioning around the pivot value with the Dutch flag loop
+ *    of Partitioning.partitionAround: values equal to the pivot end up in the
+ *    middle and are never looked at again, so many duplicates make the sort
+ *    faster instead of quadratic.
+ * 3. Recurse into the smaller side only and loop on the larger one; the
+ *    stack never holds more than log2(n) frames.
+ * 4. Every range gets a depth budget of 2 * log2(n) partitions. A range that
+ *    runs out of it is heap sorted, which bounds the worst case to
+ *    O(n log n) whatever the pivots do.
+ * 5. Ranges of INSERTION_SORT elements or fewer are insertion sorted.
+ */
+
+package sorts;
+import java.util.Arrays;
+import java.util.Random;
+
+public class IntroSort {
+	private static final int INSERTION_SORT = 24;
+	private static final int NINTHER = 128;
+
+	public static void sort(int[] array) {
+		if (array.length > 1) {
+			int depth = 2 * (31 - Integer.numberOfLeadingZeros(array.length));
+			introSort(array, 0, array.length-1, depth);
+		}
+	}
+
+	// Sorts a[left...right], both inclusive.
+	private static void introSort(int[] array, int left, int right, int depth) {
+		while (right - left + 1 > INSERTION_SORT) {
+			if (depth == 0) {
+				heapSort(array, left, right);
+				return;
+			}
+			depth--;
+			int pivot = choosePivot(array, left, right);
+			long bounds = Partitioning.partitionAround(array, left, right, pivot);
+			int lt = (int) (bounds >>> 32);
+			int gt = (int) bounds;
+			// Recurse into the smaller side, keep looping on the larger one.
+			if (lt - left < right - gt) {
+				introSort(array, left, lt-1, depth);
+				left = gt + 1;
+			}
+			else {
+				introSort(array, gt+1, right, depth);
+				right = lt - 1;
+			}
+		}
+		insertionSort(array, left, right);
+	}
+
+	private static int choosePivot(int[] array, int left, int right) {
+		int mid = (left + right) >>> 1;
+		if (right - left + 1 < NINTHER) {
+			return median(array[left], array[mid], array[right]);
+		}
+		int step = (right - left + 1) / 8;
+		int first = median(array[left], array[left + step], array[left + 2*step]);
+		int middle = median(array[mid - step], array[mid], array[mid + step]);
+		int last = median(array[right - 2*step], array[right - step], array[right]);
+		return median(first, middle, last);
+	}
+
+	private static int median(int a, int b, int c) {
+		if (a < b) {
+			return b < c ? b : (a < c ? c : a);
+		}
+		return a < c ? a : (b < c ? c : b);
+	}
+
+	private static void insertionSort(int[] array, int left, int right) {
+		for (int i = left + 1; i <= right; i++) {
+			int key = array[i];
+			int j = i - 1;
+			while (j >= left && array[j] > key) {
+				array[j+1] = array[j];
+				j--;
+			}
+			array[j+1] = key;
+		}
+	}
+
+	// In-place heap sort of a[left...right]; the heap root sits at left.
+	private static void heapSort(int[] array, int left, int right) {
+		int size = right - left + 1;
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(array, left, i, size);
+		}
+		for (int end = size - 1; end > 0; end--) {
+			int temp = array[left];
+			array[left] = array[left + end];
+			array[left + end] = temp;
+			siftDown(array, left, 0, end);
+		}
+	}
+
+	private static void siftDown(int[] array, int base, int node, int size) {
+		int value = array[base + node];
+		while (true) {
+			int child = 2 * node + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && array[base + child + 1] > array[base + child]) {
+				child++;
+			}
+			if (array[base + child] <= value) {
+				break;
+			}
+			array[base + node] = array[base + child];
+			node = child;
+		}
+		array[base + node] = value;
+	}
+
+	// Usage: java sorts.IntroSort [size]
+	// Times random, sorted, reversed, few distinct and organ pipe inputs against Arrays.sort.
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		Random rm = new Random(2);
+		String[] names = {"random", "sorted", "reversed", "few distinct", "organ pipe"};
+		for (int kind = 0; kind < names.length; kind++) {
+			int[] data = new int[size];
+			for (int idx = 0; idx < size; idx++) {
+				switch (kind) {
+					case 0: data[idx] = rm.nextInt(); break;
+					case 1: data[idx] = idx; break;
+					case 2: data[idx] = size - idx; break;
+					case 3: data[idx] = rm.nextInt(4); break;
+					default: data[idx] = Math.min(idx, size - idx); break;
+				}
+			}
+			int[] expected = data.clone();
+			long start = System.currentTimeMillis();
+			sort(data);
+			long introTime = System.currentTimeMillis() - start;
+			start = System.currentTimeMillis();
+			Arrays.sort(expected);
+			long libraryTime = System.currentTimeMillis() - start;
+			System.out.println(names[kind] + ": IntroSort " + introTime + " ms, Arrays.sort "
+				+ libraryTime + " ms, equal: " + Arrays.equals(data, expected));
+		}
+
+		// Force the heap sort fallback on a small range to check it.
+		int[] small = new int[1000];
+		for (int idx = 0; idx < small.length; idx++) {
+			small[idx] = rm.nextInt(100);
+		}
+		int[] expected = small.clone();
+		Arrays.sort(expected);
+		introSort(small, 0, small.length-1, 0);
+		System.out.println("heap sort fallback: " + Arrays.equals(small, expected));
+	}
+}
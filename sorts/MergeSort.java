@@ -1,56 +1,153 @@
 // URL: https://www.geeksforgeeks.org/merge-sort/
 
 package sorts;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+/* Merge sort of an int[] on a ForkJoinPool.
+ *
+ * One scratch buffer is allocated per sort, as a copy of the input. The two
+ * arrays then take turns (ping-pong): to sort a range into dst, both halves
+ * are sorted into src and merged from src into dst. Since both arrays start
+ * out equal, no range is ever copied back.
+ * Ranges below INSERTION_SORT elements are insertion sorted in place, ranges
+ * below SEQUENTIAL are sorted on the current thread, larger ones fork their
+ * halves. The merges of the top levels are large and would leave the other
+ * threads idle, so they are split as well: the middle element of the longer
+ * run is located in the shorter run by binary search, which cuts the merge
+ * into two independent merges writing disjoint parts of dst.
+ */
 public class MergeSort {
-	private static void doMerge(int[] input, int low, int mid, int high) {
-		
-		// Get sizes of the arrays to be sorted in this recursive call
-		int firstSize = mid - low + 1;
-		int secondSize = high - mid;
-		// Create arrays temporarily for the sorting
-		int[] tempL = new int[firstSize];
-		int[] tempR = new int[secondSize];
-		// Copy values in both the temp arrays
-		for (int idx = 0; idx < firstSize; idx++)
-			tempL[idx] = input[low + idx];
-		for (int idx = 0; idx < secondSize; idx++)
-			tempR[idx] = input[mid + 1 + idx];
-		// Initialize indexes back to zero to check the values from both
-		// arrays.
-		int idxL = 0, idxR = 0;
-		int k = low;
-		// Continue the array comparison till any one of them reaches the end.
-		while (idxR < secondSize && idxL < firstSize) {
-			if (tempL[idxL] <= tempR[idxR]) {
-				input[k] = tempL[idxL];
-				idxL++;
+	private static final int INSERTION_SORT = 32;
+	private static final int SEQUENTIAL = 1 << 13;
+
+	public static void sort(int[] input) {
+		sort(input, ForkJoinPool.commonPool());
+	}
+
+	public static void sort(int[] input, ForkJoinPool pool) {
+		if (input.length <= INSERTION_SORT) {
+			insertionSort(input, 0, input.length);
+			return;
+		}
+		int[] scratch = input.clone();
+		pool.invoke(new SortTask(scratch, input, 0, input.length));
+	}
+
+	// Sorts dst[low, high); src[low, high) holds the same values on entry and is used as scratch.
+	private static final class SortTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final int[] src, dst;
+		final int low, high;
+
+		SortTask(int[] src, int[] dst, int low, int high) {
+			this.src = src;
+			this.dst = dst;
+			this.low = low;
+			this.high = high;
+		}
+
+		@Override
+		protected void compute() {
+			if (high - low <= SEQUENTIAL) {
+				sortInto(src, dst, low, high);
+				return;
 			}
-			else {
-				input[k] = tempR[idxR];
-				idxR++;
+			int mid = (low + high) >>> 1;
+			invokeAll(new SortTask(dst, src, low, mid), new SortTask(dst, src, mid, high));
+			new MergeTask(src, low, mid, mid, high, dst, low).compute();
+		}
+	}
+
+	// Merges the sorted runs src[lowA, highA) and src[lowB, highB) into dst from index at.
+	private static final class MergeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final int[] src, dst;
+		final int lowA, highA, lowB, highB, at;
+
+		MergeTask(int[] src, int lowA, int highA, int lowB, int highB, int[] dst, int at) {
+			this.src = src;
+			this.lowA = lowA;
+			this.highA = highA;
+			this.lowB = lowB;
+			this.highB = highB;
+			this.dst = dst;
+			this.at = at;
+		}
+
+		@Override
+		protected void compute() {
+			int sizeA = highA - lowA, sizeB = highB - lowB;
+			if (sizeA + sizeB <= SEQUENTIAL) {
+				merge(src, lowA, highA, lowB, highB, dst, at);
+				return;
+			}
+			if (sizeA < sizeB) {
+				// Split on the longer run.
+				new MergeTask(src, lowB, highB, lowA, highA, dst, at).compute();
+				return;
 			}
-			k++;
+			int midA = (lowA + highA) >>> 1;
+			int midB = lowerBound(src, lowB, highB, src[midA]);
+			int split = at + (midA - lowA) + (midB - lowB);
+			invokeAll(new MergeTask(src, lowA, midA, lowB, midB, dst, at),
+				new MergeTask(src, midA, highA, midB, highB, dst, split));
 		}
-		// Copy the remaining the elements from both the arrays into the 
-		// original array.
-		while (idxR < secondSize) {
-			input[k++] = tempR[idxR++];
+	}
+
+	// Sequential ping-pong merge sort of dst[low, high).
+	private static void sortInto(int[] src, int[] dst, int low, int high) {
+		if (high - low <= INSERTION_SORT) {
+			insertionSort(dst, low, high);
+			return;
 		}
-		while (idxL < firstSize) {
-			input[k++] = tempL[idxL++];
+		int mid = (low + high) >>> 1;
+		sortInto(dst, src, low, mid);
+		sortInto(dst, src, mid, high);
+		if (src[mid - 1] <= src[mid]) {
+			// Already in order.
+			System.arraycopy(src, low, dst, low, high - low);
+			return;
 		}
+		merge(src, low, mid, mid, high, dst, low);
 	}
 
-	// Merge Sort method
-	// Divide the array in two equal parts
-	private static void doMergeSort(int[] input, int low, int high) {
-		if (low < high) {
-			int mid = low + (high - low) / 2;
-			doMergeSort(input, low, mid);
-			doMergeSort(input, mid + 1, high);
-			doMerge(input, low, mid, high);
+	private static void merge(int[] src, int lowA, int highA, int lowB, int highB, int[] dst, int at) {
+		while (lowA < highA && lowB < highB) {
+			dst[at++] = src[lowA] <= src[lowB] ? src[lowA++] : src[lowB++];
+		}
+		System.arraycopy(src, lowA, dst, at, highA - lowA);
+		at += highA - lowA;
+		System.arraycopy(src, lowB, dst, at, highB - lowB);
+	}
+
+	// First index in [low, high) whose value is >= key.
+	private static int lowerBound(int[] array, int low, int high, int key) {
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (array[mid] < key) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static void insertionSort(int[] array, int low, int high) {
+		for (int i = low + 1; i < high; i++) {
+			int key = array[i];
+			int j = i - 1;
+			while (j >= low && array[j] > key) {
+				array[j + 1] = array[j];
+				j--;
+			}
+			array[j + 1] = key;
 		}
 	}
 
@@ -82,10 +179,41 @@ public class MergeSort {
 		return input;
 	}
 	
+	// Usage: java sorts.MergeSort [size] [rounds]
+	// Sorts 20 values, then compares sort() with Arrays.sort and Arrays.parallelSort.
 	public static void main(String[] args) {
 		int[] input = generateArray(20, 20);
 		printArray("Input", input);
-		doMergeSort(input, 0, input.length-1);
+		sort(input);
 		printArray("Output", input);
+
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		long mergeTime = 0, sortTime = 0, parallelTime = 0;
+		boolean same = true;
+		Random rm = new Random(1);
+		for (int round = 0; round < rounds; round++) {
+			int[] data = new int[size];
+			for (int idx = 0; idx < size; idx++) {
+				data[idx] = rm.nextInt();
+			}
+			int[] a = data.clone(), b = data.clone(), c = data.clone();
+			long start = System.nanoTime();
+			sort(a);
+			mergeTime += System.nanoTime() - start;
+			start = System.nanoTime();
+			Arrays.sort(b);
+			sortTime += System.nanoTime() - start;
+			start = System.nanoTime();
+			Arrays.parallelSort(c);
+			parallelTime += System.nanoTime() - start;
+			same &= Arrays.equals(a, b) && Arrays.equals(a, c);
+		}
+		System.out.println(size + " random ints, average of " + rounds + " rounds on "
+			+ ForkJoinPool.commonPool().getParallelism() + " worker threads:");
+		System.out.println("MergeSort.sort:      " + mergeTime / rounds / 1000000 + " ms");
+		System.out.println("Arrays.sort:         " + sortTime / rounds / 1000000 + " ms");
+		System.out.println("Arrays.parallelSort: " + parallelTime / rounds / 1000000 + " ms");
+		System.out.println("Results equal: " + same);
 	}
-}
\ No newline at end of file
+}
@@ -24,26 +24,31 @@ public class Partitioning {
 	// Time complexity: O(n)
 	// Space complexity: O(1)
 	public static void doPartitioning(int[] array) {
-		int low = 0, mid = 0, high = array.length-1;
+		// 0s, 1s and 2s are the values below, equal to and above 1.
+		partitionAround(array, 0, array.length-1, 1);
+	}
+
+	// Same three-way split of a[left...right] around any pivot value:
+	// a[left...lt-1] < pivot, a[lt...gt] == pivot, a[gt+1...right] > pivot.
+	// Returns lt and gt packed as (lt << 32) | gt; used by IntroSort.
+	public static long partitionAround(int[] array, int left, int right, int pivot) {
+		int low = left, mid = left, high = right;
 		while (mid <= high) {
-			// Invariant: a[0-low-1] = 0s etc
+			// Invariant: a[left...low-1] < pivot, a[low...mid-1] == pivot, a[high+1...right] > pivot
 			int value = array[mid];
-			switch(value) {
-				case 0:
-					swap(array, low, mid);
-					low++; mid++;
-					break;
-
-				case 1:
-					mid++;
-					break;
-
-				case 2:
-					swap(array, mid, high);
-					high--;
-					break;
+			if (value < pivot) {
+				swap(array, low, mid);
+				low++; mid++;
+			}
+			else if (value == pivot) {
+				mid++;
+			}
+			else {
+				swap(array, mid, high);
+				high--;
 			}
 		}
+		return ((long) low << 32) | (high & 0xFFFFFFFFL);
 	}
 
 	public static void printArray(int[] array) {
@@ -0,0 +1,491 @@
+/* Radix sorts for primitive keys, strings and byte arrays.
+ *
+ * LSD (int[], long[], float[]): the keys are distributed by one digit at a
+ * time, least significant first, between the array and one scratch array
+ * (ping-pong). ints use 8-bit digits (4 passes, 256 buckets), longs 11-bit
+ * digits (6 passes, 2048 buckets, still fits in L1). The histograms of all
+ * digits are counted in a single read of the input, and a pass whose digit
+ * is the same for every key is skipped. Signed order comes from flipping the
+ * sign bit in the top digit; floats are first mapped to ints whose signed
+ * order is the float order (negative floats get their other 31 bits flipped).
+ *
+ * Parallel mode: the array is cut into a few blocks per thread. Every pass each
+ * block counts its own histogram, a prefix sum over (digit, block) gives each
+ * block its private output position for every digit, and the blocks scatter
+ * concurrently without any synchronization. The result is the same stable
+ * order as the sequential sort.
+ *
+ * MSD (String[], byte[][]): distribute on the first character, then sort
+ * every bucket on the next one, recursively; keys that end come first.
+ * Strings are compared by UTF-16 code unit like String.compareTo, each char
+ * split into two bytes so that there are only 257 buckets. Small buckets
+ * are insertion sorted. Only the buckets other than the largest are sorted
+ * recursively, the largest one by looping, so keys sharing a long prefix
+ * cannot overflow the stack: the recursion is at most log2(n) deep.
+ */
+
+package sorts;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class RadixSort {
+	private static final int INT_BITS = 8;
+	private static final int LONG_BITS = 11;
+	private static final int MSD_INSERTION_SORT = 16;
+	// Below this size the parallel sort is not worth its blocks.
+	private static final int PARALLEL = 1 << 16;
+
+	public static void sort(int[] array) {
+		int n = array.length;
+		int radix = 1 << INT_BITS, mask = radix - 1;
+		int passes = 32 / INT_BITS;
+		int[][] count = new int[passes][radix + 1];
+		for (int i = 0; i < n; i++) {
+			int key = array[i] ^ Integer.MIN_VALUE;
+			for (int p = 0; p < passes; p++) {
+				count[p][((key >>> (p * INT_BITS)) & mask) + 1]++;
+			}
+		}
+		int[] src = array, dst = new int[n];
+		for (int p = 0; p < passes; p++) {
+			int[] start = count[p];
+			if (singleDigit(start, n)) {
+				continue;
+			}
+			for (int d = 0; d < radix; d++) {
+				start[d + 1] += start[d];
+			}
+			int shift = p * INT_BITS;
+			for (int i = 0; i < n; i++) {
+				int value = src[i];
+				dst[start[((value ^ Integer.MIN_VALUE) >>> shift) & mask]++] = value;
+			}
+			int[] temp = src;
+			src = dst;
+			dst = temp;
+		}
+		if (src != array) {
+			System.arraycopy(src, 0, array, 0, n);
+		}
+	}
+
+	public static void sort(long[] array) {
+		int n = array.length;
+		int radix = 1 << LONG_BITS, mask = radix - 1;
+		int passes = (64 + LONG_BITS - 1) / LONG_BITS;
+		int[][] count = new int[passes][radix + 1];
+		for (int i = 0; i < n; i++) {
+			long key = array[i] ^ Long.MIN_VALUE;
+			for (int p = 0; p < passes; p++) {
+				count[p][(int) ((key >>> (p * LONG_BITS)) & mask) + 1]++;
+			}
+		}
+		long[] src = array, dst = new long[n];
+		for (int p = 0; p < passes; p++) {
+			int[] start = count[p];
+			if (singleDigit(start, n)) {
+				continue;
+			}
+			for (int d = 0; d < radix; d++) {
+				start[d + 1] += start[d];
+			}
+			int shift = p * LONG_BITS;
+			for (int i = 0; i < n; i++) {
+				long value = src[i];
+				dst[start[(int) (((value ^ Long.MIN_VALUE) >>> shift) & mask)]++] = value;
+			}
+			long[] temp = src;
+			src = dst;
+			dst = temp;
+		}
+		if (src != array) {
+			System.arraycopy(src, 0, array, 0, n);
+		}
+	}
+
+	/* Same order as Arrays.sort(float[]) for all numbers, -0.0 before 0.0.
+	 * NaNs go to the end, except ones with the sign bit set, which go first.
+	 */
+	public static void sort(float[] array) {
+		int[] keys = new int[array.length];
+		for (int i = 0; i < array.length; i++) {
+			keys[i] = floatKey(Float.floatToRawIntBits(array[i]));
+		}
+		sort(keys);
+		for (int i = 0; i < array.length; i++) {
+			// The mapping is its own inverse.
+			array[i] = Float.intBitsToFloat(floatKey(keys[i]));
+		}
+	}
+
+	private static int floatKey(int bits) {
+		return bits >= 0 ? bits : bits ^ Integer.MAX_VALUE;
+	}
+
+	// True when the counts say that every key has the same digit.
+	private static boolean singleDigit(int[] count, int n) {
+		for (int d = 1; d < count.length; d++) {
+			if (count[d] == n) {
+				return true;
+			}
+			if (count[d] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static void parallelSort(int[] array) {
+		parallelSort(array, ForkJoinPool.commonPool());
+	}
+
+	public static void parallelSort(int[] array, ForkJoinPool pool) {
+		int n = array.length;
+		int blocks = Math.min(pool.getParallelism() * 4, Math.max(1, n / PARALLEL));
+		if (blocks <= 1) {
+			sort(array);
+			return;
+		}
+		int radix = 1 << INT_BITS, mask = radix - 1;
+		int[] src = array, dst = new int[n];
+		// offset[b][d]: where block b writes its next key with digit d.
+		int[][] offset = new int[blocks][radix];
+		for (int shift = 0; shift < 32; shift += INT_BITS) {
+			int[] from = src, to = dst;
+			int s = shift;
+			pool.submit(() -> IntStream.range(0, blocks).parallel().forEach(b -> {
+				int[] count = offset[b];
+				Arrays.fill(count, 0);
+				for (int i = blockStart(b, blocks, n); i < blockStart(b + 1, blocks, n); i++) {
+					count[((from[i] ^ Integer.MIN_VALUE) >>> s) & mask]++;
+				}
+			})).join();
+			// Digit-major prefix sum, so block b of digit d follows block b - 1 of digit d.
+			int total = 0;
+			boolean skip = false;
+			for (int d = 0; d < radix; d++) {
+				int digitTotal = 0;
+				for (int b = 0; b < blocks; b++) {
+					int c = offset[b][d];
+					offset[b][d] = total;
+					total += c;
+					digitTotal += c;
+				}
+				skip |= digitTotal == n;
+			}
+			if (skip) {
+				continue;
+			}
+			pool.submit(() -> IntStream.range(0, blocks).parallel().forEach(b -> {
+				int[] position = offset[b];
+				for (int i = blockStart(b, blocks, n); i < blockStart(b + 1, blocks, n); i++) {
+					int value = from[i];
+					to[position[((value ^ Integer.MIN_VALUE) >>> s) & mask]++] = value;
+				}
+			})).join();
+			src = to;
+			dst = from;
+		}
+		if (src != array) {
+			System.arraycopy(src, 0, array, 0, n);
+		}
+	}
+
+	public static void parallelSort(long[] array) {
+		parallelSort(array, ForkJoinPool.commonPool());
+	}
+
+	public static void parallelSort(long[] array, ForkJoinPool pool) {
+		int n = array.length;
+		int blocks = Math.min(pool.getParallelism() * 4, Math.max(1, n / PARALLEL));
+		if (blocks <= 1) {
+			sort(array);
+			return;
+		}
+		int radix = 1 << LONG_BITS, mask = radix - 1;
+		long[] src = array, dst = new long[n];
+		int[][] offset = new int[blocks][radix];
+		for (int shift = 0; shift < 64; shift += LONG_BITS) {
+			long[] from = src, to = dst;
+			int s = shift;
+			pool.submit(() -> IntStream.range(0, blocks).parallel().forEach(b -> {
+				int[] count = offset[b];
+				Arrays.fill(count, 0);
+				for (int i = blockStart(b, blocks, n); i < blockStart(b + 1, blocks, n); i++) {
+					count[(int) (((from[i] ^ Long.MIN_VALUE) >>> s) & mask)]++;
+				}
+			})).join();
+			int total = 0;
+			boolean skip = false;
+			for (int d = 0; d < radix; d++) {
+				int digitTotal = 0;
+				for (int b = 0; b < blocks; b++) {
+					int c = offset[b][d];
+					offset[b][d] = total;
+					total += c;
+					digitTotal += c;
+				}
+				skip |= digitTotal == n;
+			}
+			if (skip) {
+				continue;
+			}
+			pool.submit(() -> IntStream.range(0, blocks).parallel().forEach(b -> {
+				int[] position = offset[b];
+				for (int i = blockStart(b, blocks, n); i < blockStart(b + 1, blocks, n); i++) {
+					long value = from[i];
+					to[position[(int) (((value ^ Long.MIN_VALUE) >>> s) & mask)]++] = value;
+				}
+			})).join();
+			src = to;
+			dst = from;
+		}
+		if (src != array) {
+			System.arraycopy(src, 0, array, 0, n);
+		}
+	}
+
+	private static int blockStart(int block, int blocks, int n) {
+		return (int) ((long) n * block / blocks);
+	}
+
+	public static void sort(String[] array) {
+		msd(array, new String[array.length], 0, array.length, 0);
+	}
+
+	// d-th byte of s (two per char, high byte first), -1 past the end.
+	private static int digit(String s, int d) {
+		int c = d >>> 1;
+		if (c >= s.length()) {
+			return -1;
+		}
+		return (d & 1) == 0 ? s.charAt(c) >>> 8 : s.charAt(c) & 0xFF;
+	}
+
+	// Sorts a[lo, hi), whose keys agree on the first d bytes.
+	private static void msd(String[] a, String[] aux, int lo, int hi, int d) {
+		while (true) {
+			if (hi - lo <= MSD_INSERTION_SORT) {
+				for (int i = lo + 1; i < hi; i++) {
+					String key = a[i];
+					int j = i - 1;
+					while (j >= lo && a[j].compareTo(key) > 0) {
+						a[j + 1] = a[j];
+						j--;
+					}
+					a[j + 1] = key;
+				}
+				return;
+			}
+			// Bucket 0 holds the keys that end here, bucket 1 + b the ones with byte b.
+			int[] start = new int[258];
+			for (int i = lo; i < hi; i++) {
+				start[digit(a[i], d) + 2]++;
+			}
+			for (int b = 0; b < 257; b++) {
+				start[b + 1] += start[b];
+			}
+			for (int i = lo; i < hi; i++) {
+				aux[start[digit(a[i], d) + 1]++] = a[i];
+			}
+			System.arraycopy(aux, 0, a, lo, hi - lo);
+			// start[b] is now the end of bucket b, which begins at start[b - 1]; the ended keys are done.
+			// Recurse into every bucket but the largest and loop on that one: each
+			// call gets at most half the keys, so the stack stays within log2(n)
+			// frames however long the shared prefixes are.
+			int largest = 1;
+			for (int b = 2; b < 257; b++) {
+				if (start[b] - start[b - 1] > start[largest] - start[largest - 1]) {
+					largest = b;
+				}
+			}
+			for (int b = 1; b < 257; b++) {
+				if (b != largest && start[b] - start[b - 1] > 1) {
+					msd(a, aux, lo + start[b - 1], lo + start[b], d + 1);
+				}
+			}
+			if (start[largest] - start[largest - 1] <= 1) {
+				return;
+			}
+			hi = lo + start[largest];
+			lo += start[largest - 1];
+			d++;
+		}
+	}
+
+	// Unsigned lexicographic order, shorter prefix first.
+	public static void sort(byte[][] array) {
+		msd(array, new byte[array.length][], 0, array.length, 0);
+	}
+
+	private static int digit(byte[] s, int d) {
+		return d < s.length ? s[d] & 0xFF : -1;
+	}
+
+	private static int compare(byte[] a, byte[] b, int from) {
+		int n = Math.min(a.length, b.length);
+		for (int i = from; i < n; i++) {
+			int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	private static void msd(byte[][] a, byte[][] aux, int lo, int hi, int d) {
+		while (true) {
+			if (hi - lo <= MSD_INSERTION_SORT) {
+				for (int i = lo + 1; i < hi; i++) {
+					byte[] key = a[i];
+					int j = i - 1;
+					while (j >= lo && compare(a[j], key, d) > 0) {
+						a[j + 1] = a[j];
+						j--;
+					}
+					a[j + 1] = key;
+				}
+				return;
+			}
+			int[] start = new int[258];
+			for (int i = lo; i < hi; i++) {
+				start[digit(a[i], d) + 2]++;
+			}
+			for (int b = 0; b < 257; b++) {
+				start[b + 1] += start[b];
+			}
+			for (int i = lo; i < hi; i++) {
+				aux[start[digit(a[i], d) + 1]++] = a[i];
+			}
+			System.arraycopy(aux, 0, a, lo, hi - lo);
+			// As for strings: recurse into the smaller buckets, loop on the largest.
+			int largest = 1;
+			for (int b = 2; b < 257; b++) {
+				if (start[b] - start[b - 1] > start[largest] - start[largest - 1]) {
+					largest = b;
+				}
+			}
+			for (int b = 1; b < 257; b++) {
+				if (b != largest && start[b] - start[b - 1] > 1) {
+					msd(a, aux, lo + start[b - 1], lo + start[b], d + 1);
+				}
+			}
+			if (start[largest] - start[largest - 1] <= 1) {
+				return;
+			}
+			hi = lo + start[largest];
+			lo += start[largest - 1];
+			d++;
+		}
+	}
+
+	// Usage: java sorts.RadixSort [size]
+	// Checks every variant against Arrays.sort and times the int and long sorts.
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		Random rm = new Random(4);
+
+		int[] ints = new int[size];
+		for (int i = 0; i < size; i++) {
+			ints[i] = rm.nextInt();
+		}
+		int[] expectedInts = ints.clone();
+		long start = System.currentTimeMillis();
+		Arrays.sort(expectedInts);
+		long library = System.currentTimeMillis() - start;
+		int[] a = ints.clone();
+		start = System.currentTimeMillis();
+		sort(a);
+		long radix = System.currentTimeMillis() - start;
+		int[] b = ints.clone();
+		start = System.currentTimeMillis();
+		parallelSort(b);
+		long parallel = System.currentTimeMillis() - start;
+		System.out.println(size + " ints: Arrays.sort " + library + " ms, radix " + radix + " ms, parallel radix "
+			+ parallel + " ms, equal: " + (Arrays.equals(a, expectedInts) && Arrays.equals(b, expectedInts)));
+
+		long[] longs = new long[size];
+		for (int i = 0; i < size; i++) {
+			longs[i] = rm.nextLong() >> rm.nextInt(64);
+		}
+		long[] expectedLongs = longs.clone();
+		start = System.currentTimeMillis();
+		Arrays.sort(expectedLongs);
+		library = System.currentTimeMillis() - start;
+		long[] c = longs.clone();
+		start = System.currentTimeMillis();
+		sort(c);
+		radix = System.currentTimeMillis() - start;
+		long[] e = longs.clone();
+		start = System.currentTimeMillis();
+		parallelSort(e);
+		parallel = System.currentTimeMillis() - start;
+		System.out.println(size + " longs: Arrays.sort " + library + " ms, radix " + radix + " ms, parallel radix "
+			+ parallel + " ms, equal: " + (Arrays.equals(c, expectedLongs) && Arrays.equals(e, expectedLongs)));
+
+		float[] floats = new float[100000];
+		for (int i = 0; i < floats.length; i++) {
+			floats[i] = (float) (rm.nextGaussian() * Math.pow(10, rm.nextInt(20) - 10));
+		}
+		floats[0] = -0.0f;
+		floats[1] = 0.0f;
+		floats[2] = Float.NEGATIVE_INFINITY;
+		floats[3] = Float.NaN;
+		float[] expectedFloats = floats.clone();
+		Arrays.sort(expectedFloats);
+		sort(floats);
+		System.out.println("floats equal: " + Arrays.equals(floats, expectedFloats));
+
+		String[] words = new String[200000];
+		byte[][] bytes = new byte[words.length][];
+		for (int i = 0; i < words.length; i++) {
+			char[] w = new char[rm.nextInt(12)];
+			for (int j = 0; j < w.length; j++) {
+				// Mostly lower case, some characters beyond Latin-1.
+				w[j] = rm.nextInt(10) == 0 ? (char) (0x100 + rm.nextInt(0x2000)) : (char) ('a' + rm.nextInt(4));
+			}
+			words[i] = new String(w);
+			bytes[i] = new byte[w.length];
+			for (int j = 0; j < w.length; j++) {
+				bytes[i][j] = (byte) w[j];
+			}
+		}
+		String[] expectedWords = words.clone();
+		Arrays.sort(expectedWords);
+		sort(words);
+		byte[][] expectedBytes = bytes.clone();
+		Arrays.sort(expectedBytes, (x, y) -> compare(x, y, 0));
+		sort(bytes);
+		boolean bytesEqual = true;
+		for (int i = 0; i < bytes.length; i++) {
+			bytesEqual &= Arrays.equals(bytes[i], expectedBytes[i]);
+		}
+		System.out.println("strings equal: " + Arrays.equals(words, expectedWords) + ", byte arrays equal: "
+			+ bytesEqual);
+
+		// Keys sharing a prefix far longer than the stack is deep.
+		char[] prefix = new char[20000];
+		Arrays.fill(prefix, 'x');
+		String[] shared = new String[40];
+		byte[][] sharedBytes = new byte[40][];
+		for (int i = 0; i < shared.length; i++) {
+			shared[i] = new String(prefix) + (char) ('a' + rm.nextInt(26));
+			sharedBytes[i] = new byte[30000];
+			sharedBytes[i][29999] = (byte) rm.nextInt(256);
+		}
+		String[] expectedShared = shared.clone();
+		Arrays.sort(expectedShared);
+		sort(shared);
+		byte[][] expectedSharedBytes = sharedBytes.clone();
+		Arrays.sort(expectedSharedBytes, (x, y) -> compare(x, y, 0));
+		sort(sharedBytes);
+		boolean sharedBytesEqual = true;
+		for (int i = 0; i < sharedBytes.length; i++) {
+			sharedBytesEqual &= Arrays.equals(sharedBytes[i], expectedSharedBytes[i]);
+		}
+		System.out.println("long shared prefix: strings equal: " + Arrays.equals(shared, expectedShared)
+			+ ", byte arrays equal: " + sharedBytesEqual);
+	}
+}